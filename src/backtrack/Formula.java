@@ -92,6 +92,22 @@ public class Formula {
 	initBacktrack();
     }
 
+    /**
+	Loads a formula that is already in memory.  Clauses may have any
+	length; they are copied since solving modifies them.
+	@param name problem name
+	@param nvar number of vars
+	@param clauses clauses in DIMACS literals, without the 0 terminator
+    */
+    public Formula(String name, int nvar, List<int[]> clauses) {
+	this.name = name;
+	this.nvar = nvar;
+	this.nclauses = clauses.size();
+	this.form = new int[nclauses][ ];
+	for (int i = 0; i < nclauses; i++)  this.form[i] = clauses.get(i).clone();
+	initBacktrack();
+    }
+
 	
 	
 	
@@ -103,6 +119,16 @@ public class Formula {
 		System.out.println();
     }
 
+    /**
+       @return the current assignment as literals i or -i for vars 1..nvar,
+       unassigned vars are reported false.
+    */
+    public int[] model() {
+	int[] model = new int[nvar];
+	for (int i = 1; i < nvar+1; i++)  model[i-1] = vars[i] > 0 ? i : -i;
+	return model;
+    }
+
     /** Initialize vars for backtracking:
 	vars: t/f/notassigned array for current assignment
 	clauseStack: stack of active clauses we backtrack to when assignment fails.
@@ -110,10 +136,9 @@ public class Formula {
     private void initBacktrack() {
 	// TODO
 	
-		tempform = new int [nclauses][nvar];//copy of the original form
+		tempform = new int [nclauses][];//copy of the original form
 		for(int i = 0; i<form.length;i++){ //transfering values
-			for(int k = 0; k<form[i].length;k++)
-				tempform[i][k] = form[i][k]; //tempform[i][k] has the value of form[i][k]
+			tempform[i] = form[i].clone(); //tempform[i] has the values of form[i]
 		}
 		vars = new int[nvar+1]; //initialize vars to length nvar+1
 		clauseStack = new Stack<LinkedList<Integer>>();	//initalize stack
@@ -6,6 +6,10 @@ package backtrack;
  */
 public class SATBacktrack {
     Formula formula; // a CNF problem to solve (you implement methods in this class)
+    private long deadline; // System.currentTimeMillis() to give up at, 0 for never
+    private boolean timedOut; // true once dp gave up because of the deadline
+    private long decisions; // branch variables picked
+    private long conflicts; // dead ends found
 	
     /**
        Solve fileName problem 
@@ -32,6 +36,33 @@ public class SATBacktrack {
 	System.out.println ("Formula is unsatisfiable");
     }
 	
+    /**
+       Make dp give up (return false and set timedOut) after timeoutMillis.
+       The formula is left partly assigned after a timeout and should be dropped.
+       @param timeoutMillis time limit from now, 0 for no limit
+    */
+    public void setTimeout ( long timeoutMillis ) {
+	deadline = timeoutMillis > 0 ? System.currentTimeMillis() + timeoutMillis : 0;
+	timedOut = false;
+    }
+
+    /**
+       @return true iff the last dp call ran out of time, so its false means unknown
+    */
+    public boolean timedOut ( ) {
+	return timedOut;
+    }
+
+    /** @return number of branch variables picked so far */
+    public long decisions ( ) {
+	return decisions;
+    }
+
+    /** @return number of dead ends (empty clauses) found so far */
+    public long conflicts ( ) {
+	return conflicts;
+    }
+
     /**
        Recursive backtracking solution
        @param formula 3sat formula to solve.
@@ -39,18 +70,28 @@ public class SATBacktrack {
     */
     public boolean dp ( Formula formula ) {
 		
+	if ( timedOut || (deadline != 0 && System.currentTimeMillis() > deadline)) {
+	    timedOut = true; // unwind without searching further
+	    return false;
+	}
 	if ( formula.isEmpty()) // First base case: solution found
 	    return true;
 	else if (formula.hasEmptyClause ()){ // Second base case: dead end found
-		
+		conflicts++;
 	    return false;
 	}
 	else {
 	    // Pick a branch variable
 	    int var = formula.selectBranchVar (  );
+	    decisions++;
 	    formula.setVar ( var, true );
 	    if (dp(formula)) 
 			return true;
+	    else if (timedOut) {
+			// Out of time: the formula is abandoned, so skip the
+			// unset and the false branch
+			return false;
+	    }
 	    else {
 			// Unset var in the formula 
 			formula.unset ( var );
@@ -59,6 +100,8 @@ public class SATBacktrack {
 
 			if (dp (formula))
 				return true;
+			else if (timedOut)
+				return false;
 			else {
 				// Neither true nor false worked, so unset the branch 
 				// variable and backtrack
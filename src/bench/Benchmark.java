@@ -0,0 +1,242 @@
+package bench;
+
+import java.io.*;
+import java.util.*;
+
+import engine.Cnf;
+import engine.SolverEngine;
+import sat4j.PhaseStats;
+import sat4j.SudokuSolver;
+
+/**
+ * Solves every instance of a corpus (see Corpus) with each engine under a
+ * time limit and scores each engine by solved count and PAR-2: the sum of
+ * run times, with 2 x the time limit charged for every instance not solved.
+ * Results can be saved as a baseline and later runs compared against it.
+ *
+ * Run times are end to end.  Sudoku puzzles go through SudokuSolver.solve,
+ * so reading, encoding, decoding, writing the solution file next to the
+ * puzzle and certifying are all timed; cnf files are timed from reading
+ * them.  The solve time alone is printed in its own column.
+ *
+ * Usage: java bench.Benchmark [-timeout ms] [-engines sat4j,backtrack]
+ *            [-record baseline.properties] [-baseline baseline.properties [-threshold 0.2]] corpusDir
+ *
+ * With -baseline the run fails (exit status 1) when an engine's PAR-2 is more
+ * than threshold (a fraction) worse than in the baseline, when it solves fewer
+ * instances, or when any engine gives a wrong answer.  PAR-2 depends on the
+ * time limit, so it also fails when the baseline was recorded with another
+ * -timeout, or when an engine in the baseline was not run.
+ */
+public class Benchmark {
+
+    /** Totals for one engine over the corpus */
+    static class Score {
+        int solved;
+        int wrong;
+        double par2Seconds;
+    }
+
+    /** One engine on one instance */
+    static class Run {
+        String status;
+        String verdict;
+        double seconds;
+        double solveSeconds;
+    }
+
+    public static void main(String[] args) throws IOException {
+        long timeout = 5000;
+        List<String> engines = Arrays.asList("sat4j", "backtrack");
+        String record = null, baseline = null;
+        double threshold = 0.2;
+        int a = 0;
+        for(; a < args.length - 1 && args[a].startsWith("-"); a += 2){
+            String value = args[a+1];
+            if(args[a].equals("-timeout")) timeout = Long.parseLong(value);
+            else if(args[a].equals("-engines")) engines = Arrays.asList(value.split(","));
+            else if(args[a].equals("-record")) record = value;
+            else if(args[a].equals("-baseline")) baseline = value;
+            else if(args[a].equals("-threshold")) threshold = Double.parseDouble(value);
+            else break;
+        }
+        if(a != args.length - 1){
+            System.err.println("Usage: java bench.Benchmark [-timeout ms] [-engines a,b] [-record file] [-baseline file [-threshold f]] corpusDir");
+            System.exit(2);
+        }
+        File dir = new File(args[a]);
+        Map<String, String> expected = readManifest(new File(dir, Corpus.MANIFEST));
+
+        Map<String, Score> scores = new LinkedHashMap<String, Score>();
+        for(String name : engines)
+            scores.put(name, new Score());
+        System.out.printf("%-26s %-12s %-8s %10s %10s%n", "instance", "engine", "status", "ms", "solve ms");
+        for(Map.Entry<String, String> instance : expected.entrySet()){
+            String file = new File(dir, instance.getKey()).getPath();
+            for(String name : engines){
+                Run r = run(file, SolverEngine.byName(name), instance.getValue(), timeout);
+                Score score = scores.get(name);
+                if(r.verdict.equals("ok") && r.seconds <= timeout / 1000.0){
+                    score.solved++;
+                    score.par2Seconds += r.seconds;
+                } else {
+                    score.par2Seconds += 2 * timeout / 1000.0;
+                    if(r.verdict.equals("WRONG"))
+                        score.wrong++;
+                }
+                System.out.printf("%-26s %-12s %-8s %10.1f %10.1f %s%n", instance.getKey(), name, r.status,
+                        r.seconds * 1000, r.solveSeconds * 1000, r.verdict.equals("ok") ? "" : r.verdict);
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-12s %8s %8s %12s%n", "engine", "solved", "wrong", "PAR-2 (s)");
+        for(Map.Entry<String, Score> e : scores.entrySet())
+            System.out.printf("%-12s %5d/%-3d %7d %12.2f%n", e.getKey(), e.getValue().solved, expected.size(),
+                    e.getValue().wrong, e.getValue().par2Seconds);
+
+        boolean failed = false;
+        for(Map.Entry<String, Score> e : scores.entrySet()){
+            if(e.getValue().wrong > 0){
+                System.out.println("FAIL " + e.getKey() + ": " + e.getValue().wrong + " wrong answers");
+                failed = true;
+            }
+        }
+        if(record != null)
+            writeBaseline(record, scores, timeout);
+        if(baseline != null)
+            failed |= !compare(baseline, scores, timeout, threshold);
+        System.exit(failed ? 1 : 0);
+    }
+
+    /**
+     * @return "ok" if the result is right or merely undecided, "WRONG" if it
+     * contradicts the expected answer or its model fails, "unknown" if undecided
+     */
+    static String judge(SolverEngine.Result r, Cnf cnf, String expected){
+        switch(r.status){
+            case SAT:
+                return !expected.equals("UNSAT") && cnf.satisfiedBy(r.model) ? "ok" : "WRONG";
+            case UNSAT:
+                return !expected.equals("SAT") ? "ok" : "WRONG";
+            default:
+                return "unknown";
+        }
+    }
+
+    /**
+     * judge for a Sudoku puzzle, whose solution SudokuSolver has certified
+     */
+    static String judge(PhaseStats run, String expected){
+        switch(run.status()){
+            case "SAT":
+                return !expected.equals("UNSAT") && run.verified() ? "ok" : "WRONG";
+            case "UNSAT":
+                return !expected.equals("SAT") ? "ok" : "WRONG";
+            default:
+                return "unknown";
+        }
+    }
+
+    /**
+     * Solves one instance end to end: .cnf files are DIMACS, anything else is
+     * a Sudoku puzzle and goes through SudokuSolver.solve, uncached and quiet.
+     */
+    static Run run(String file, SolverEngine engine, String expected, long timeout) throws IOException {
+        Run run = new Run();
+        if(file.endsWith(".cnf")){
+            long start = System.nanoTime();
+            Cnf cnf = Cnf.read(file);
+            long loaded = System.nanoTime();
+            SolverEngine.Result r = engine.solve(cnf, timeout);
+            long end = System.nanoTime();
+            run.status = r.status.name();
+            run.verdict = judge(r, cnf, expected);
+            run.seconds = (end - start) / 1e9;
+            run.solveSeconds = (end - loaded) / 1e9;
+            return run;
+        }
+        SudokuSolver.configure(engine, timeout, 0, false);
+        PhaseStats stats = SudokuSolver.solve(file);
+        if(stats.status().equals("ERROR"))
+            throw new IOException("could not read a board from " + file);
+        run.status = stats.status();
+        run.verdict = judge(stats, expected);
+        run.seconds = stats.totalNanos() / 1e9;
+        run.solveSeconds = stats.nanos(PhaseStats.Phase.SOLVE) / 1e9;
+        return run;
+    }
+
+    static Map<String, String> readManifest(File f) throws IOException {
+        Map<String, String> expected = new LinkedHashMap<String, String>();
+        try(BufferedReader r = new BufferedReader(new FileReader(f))){
+            String line;
+            while((line = r.readLine()) != null){
+                line = line.trim();
+                if(line.isEmpty() || line.startsWith("#"))
+                    continue;
+                String [] token = line.split("\\s+");
+                expected.put(token[0], token.length > 1 ? token[1] : "UNKNOWN");
+            }
+        }
+        return expected;
+    }
+
+    static void writeBaseline(String file, Map<String, Score> scores, long timeout) throws IOException {
+        Properties p = new Properties();
+        p.setProperty("timeout", Long.toString(timeout));
+        for(Map.Entry<String, Score> e : scores.entrySet()){
+            p.setProperty(e.getKey() + ".solved", Integer.toString(e.getValue().solved));
+            p.setProperty(e.getKey() + ".par2", Double.toString(e.getValue().par2Seconds));
+        }
+        try(Writer w = new FileWriter(file)){
+            p.store(w, "bench.Benchmark baseline");
+        }
+        System.out.println("baseline written to " + file);
+    }
+
+    /**
+     * @return false if the baseline used another time limit, or any engine in
+     * the baseline was not run, got slower by more than threshold or solved fewer instances
+     */
+    static boolean compare(String file, Map<String, Score> scores, long timeout, double threshold) throws IOException {
+        Properties p = new Properties();
+        try(Reader r = new FileReader(file)){
+            p.load(r);
+        }
+        //PAR-2 charges 2 x the time limit per unsolved instance, so scores under different limits do not compare
+        String recorded = p.getProperty("timeout");
+        if(recorded == null || Long.parseLong(recorded.trim()) != timeout){
+            System.out.println("FAIL baseline was recorded with -timeout " + recorded + ", this run used " + timeout);
+            return false;
+        }
+        boolean ok = true;
+        for(String key : new TreeSet<String>(p.stringPropertyNames())){
+            if(!key.endsWith(".par2"))
+                continue;
+            String name = key.substring(0, key.length() - ".par2".length());
+            if(!scores.containsKey(name)){
+                System.out.println("FAIL " + name + ": in the baseline but not run");
+                ok = false;
+            }
+        }
+        for(Map.Entry<String, Score> e : scores.entrySet()){
+            String par2 = p.getProperty(e.getKey() + ".par2");
+            if(par2 == null){
+                System.out.println("no baseline for " + e.getKey());
+                continue;
+            }
+            double before = Double.parseDouble(par2);
+            double now = e.getValue().par2Seconds;
+            int solvedBefore = Integer.parseInt(p.getProperty(e.getKey() + ".solved", "0"));
+            double change = before > 0 ? (now - before) / before : 0;
+            boolean slower = change > threshold;
+            boolean fewer = e.getValue().solved < solvedBefore;
+            System.out.printf("%s %s: PAR-2 %.2f s vs %.2f s baseline (%+.1f%%), solved %d vs %d%n",
+                    slower || fewer ? "FAIL" : "ok  ", e.getKey(), now, before, 100 * change,
+                    e.getValue().solved, solvedBefore);
+            ok &= !slower && !fewer;
+        }
+        return ok;
+    }
+}
@@ -0,0 +1,330 @@
+package bench;
+
+import java.io.*;
+import java.util.*;
+
+import org.sat4j.core.VecInt;
+import org.sat4j.minisat.SolverFactory;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.IVecInt;
+import org.sat4j.specs.TimeoutException;
+
+import sat4j.AtMostOne;
+import sat4j.SudokuSolver;
+
+/**
+ * Seeded generators for a reproducible benchmark corpus: uniform random k-SAT
+ * near the satisfiability threshold, pigeonhole formulas (always UNSAT) and
+ * Sudoku puzzles with a unique solution from easy to extreme at 9x9, 16x16 and 25x25.
+ *
+ * Usage: java bench.Corpus dir [seed]
+ * writes the corpus to dir plus a manifest, corpus.txt, listing each file
+ * with its expected answer (SAT, UNSAT or UNKNOWN) for bench.Benchmark.
+ * The same seed always gives byte for byte the same corpus.  Checking the
+ * Sudoku puzzles for uniqueness takes a few minutes, mostly on 25x25.
+ */
+public class Corpus {
+    public static final String MANIFEST = "corpus.txt";
+
+    //clause to variable ratio where random 3-SAT is hardest
+    static final double THRESHOLD_3SAT = 4.26;
+    //Sudoku levels, graded by givens left: every puzzle has a unique solution,
+    //extreme ones are minimal (no given can go, within the conflict budget
+    //below), the others keep this fraction of the cells as givens on top of
+    //a minimal puzzle
+    static final String [] LEVELS = {"easy", "medium", "hard", "extreme"};
+    static final double [] EXTRA_GIVENS = {0.20, 0.10, 0.04, 0};
+    //conflicts sat4j may spend on one uniqueness check, and on all the checks
+    //for one puzzle; budgets rather than time limits, so the same seed still
+    //gives the same corpus on any machine
+    static final int CHECK_CONFLICTS = 200;
+    static final long PUZZLE_CONFLICTS = 5000;
+
+    /**
+     * Uniform random k-SAT: every clause has k distinct variables with random signs.
+     * @param  n 	number of variables
+     * @param  m 	number of clauses
+     * @param  k 	literals per clause
+     */
+    public static List<int[]> randomKSat(int n, int m, int k, Random rnd){
+        List<int[]> clauses = new ArrayList<int[]>(m);
+        for(int c = 0; c<m;c++){
+            int [] clause = new int[k];
+            for(int i = 0; i<k;i++){
+                int v;
+                do {
+                    v = 1 + rnd.nextInt(n);
+                } while(contains(clause, i, v));
+                clause[i] = rnd.nextBoolean() ? v : -v;
+            }
+            clauses.add(clause);
+        }
+        return clauses;
+    }
+
+    private static boolean contains(int [] clause, int len, int v){
+        for(int i = 0; i<len;i++)
+            if(Math.abs(clause[i]) == v)
+                return true;
+        return false;
+    }
+
+    /**
+     * Pigeonhole formula: holes+1 pigeons in holes holes, unsatisfiable and
+     * exponentially hard for resolution.  Variable (p-1)*holes+h means pigeon p sits in hole h.
+     * @param  holes 	number of holes
+     */
+    public static List<int[]> pigeonhole(int holes){
+        int pigeons = holes + 1;
+        List<int[]> clauses = new ArrayList<int[]>();
+        for(int p = 1; p<=pigeons;p++){
+            int [] somewhere = new int[holes];
+            for(int h = 1; h<=holes;h++)
+                somewhere[h-1] = (p-1)*holes + h;
+            clauses.add(somewhere);
+        }
+        for(int h = 1; h<=holes;h++)
+            for(int p = 1; p<=pigeons;p++)
+                for(int q = p+1; q<=pigeons;q++)
+                    clauses.add(new int[] {-((p-1)*holes + h), -((q-1)*holes + h)});
+        return clauses;
+    }
+
+    /**
+     * A random solved board made of box x box boxes: a fixed pattern, then
+     * rows shuffled within bands, bands shuffled, the same for columns, and digits relabeled.
+     * @param  box 	rows (and columns) of one box
+     */
+    public static int [][] sudokuSolution(int box, Random rnd){
+        int n = box*box;
+        int [] rows = bandedPermutation(box, rnd);
+        int [] cols = bandedPermutation(box, rnd);
+        int [] digits = permutation(n, rnd);
+        int [][] grid = new int[n][n];
+        for(int r = 0; r<n;r++){
+            for(int c = 0; c<n;c++){
+                int pr = rows[r], pc = cols[c];
+                grid[r][c] = digits[(box*(pr%box) + pr/box + pc) % n] + 1;
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Blanks the cells of a solved board one at a time in random order,
+     * putting a cell back when blanking it lets in a second solution, which
+     * leaves a minimal puzzle.  Then the last extra cells blanked are given
+     * again; a puzzle with more givens than a unique one is still unique.
+     *
+     * The check runs sat4j on the Sudoku rules plus a clause blocking the
+     * known solution: the puzzle is unique iff that is unsatisfiable under its
+     * givens.  One solver answers every check, with the givens as assumptions.
+     * A check that runs out of its conflict budget keeps the cell, and once
+     * the puzzle's budget is spent no more cells are blanked, so on big
+     * boards the puzzle can be short of minimal.
+     * @param  solution 	solved board, not modified
+     * @param  box 	rows (and columns) of one box
+     * @param  extra 	number of givens to keep on top of a minimal puzzle
+     */
+    public static int [][] sudokuPuzzle(int [][] solution, int box, int extra, Random rnd){
+        int n = solution.length;
+        ISolver solver = sudokuRules(box);
+        IVecInt lits = new VecInt();
+        for(int r = 0; r<n;r++)
+            for(int c = 0; c<n;c++)
+                lits.push(-SudokuSolver.var(r+1, c+1, solution[r][c], n));
+        try{
+            solver.addClause(lits);
+        }
+        catch(ContradictionException e){
+            throw new IllegalStateException(e);
+        }
+
+        boolean [] given = new boolean[n*n];
+        Arrays.fill(given, true);
+        List<Integer> blanked = new ArrayList<Integer>();
+        long spent = 0;
+        for(int cell : permutation(n*n, rnd)){
+            if(spent >= PUZZLE_CONFLICTS)
+                break;
+            given[cell] = false;
+            lits.clear();
+            for(int g = 0; g<n*n;g++)
+                if(given[g])
+                    lits.push(SudokuSolver.var(g/n+1, g%n+1, solution[g/n][g%n], n));
+            boolean unique;
+            long before = conflicts(solver);
+            solver.setTimeoutOnConflicts((int) Math.min(CHECK_CONFLICTS, PUZZLE_CONFLICTS - spent));
+            try{
+                unique = !solver.isSatisfiable(lits);
+            }
+            catch(TimeoutException e){
+                //out of budget, so keep the cell to be safe
+                unique = false;
+            }
+            spent += conflicts(solver) - before;
+            if(unique)
+                blanked.add(cell);
+            else
+                given[cell] = true;
+        }
+        for(int i = Math.max(0, blanked.size()-extra); i<blanked.size();i++)
+            given[blanked.get(i)] = true;
+
+        int [][] puzzle = new int[n][n];
+        for(int cell = 0; cell<n*n;cell++)
+            if(given[cell])
+                puzzle[cell/n][cell%n] = solution[cell/n][cell%n];
+        return puzzle;
+    }
+
+    private static long conflicts(ISolver solver){
+        Number n = solver.getStat().get("conflicts");
+        return n == null ? 0 : n.longValue();
+    }
+
+    // sat4j solver holding the rules of a board of box x box boxes, no givens
+    private static ISolver sudokuRules(int box){
+        int n = box*box;
+        int aux = AtMostOne.auxVars(AtMostOne.Encoding.SEQUENTIAL, n);
+        ISolver solver = SolverFactory.newDefault();
+        solver.newVar(n*n*n + 4*n*n*aux);
+        IVecInt lits = new VecInt();
+        AtMostOne amo = new AtMostOne(AtMostOne.Encoding.SEQUENTIAL, n*n*n + 1);
+        int [] unit = new int[n];
+        try{
+            //unit u is a cell, or a digit in a row, a column or a box
+            for(int u = 0; u<4*n*n;u++){
+                int a = u % (n*n) / n, b = u % n;
+                for(int k = 0; k<n;k++){
+                    switch(u / (n*n)){
+                        case 0: unit[k] = SudokuSolver.var(a+1, b+1, k+1, n); break;
+                        case 1: unit[k] = SudokuSolver.var(a+1, k+1, b+1, n); break;
+                        case 2: unit[k] = SudokuSolver.var(k+1, a+1, b+1, n); break;
+                        default: unit[k] = SudokuSolver.var(a/box*box + k/box + 1, a%box*box + k%box + 1, b+1, n);
+                    }
+                }
+                lits.clear();
+                for(int lit : unit)
+                    lits.push(lit);
+                solver.addClause(lits);
+                amo.encode(unit, (c, from, to) -> {
+                    IVecInt clause = new VecInt();
+                    for(int i = from; i<to;i++)
+                        clause.push(c[i]);
+                    try{
+                        solver.addClause(clause);
+                    }
+                    catch(ContradictionException e){
+                        throw new IllegalStateException(e);
+                    }
+                });
+            }
+        }
+        catch(ContradictionException e){
+            throw new IllegalStateException(e);
+        }
+        return solver;
+    }
+
+    // permutation of 0..box*box-1 that keeps each band of box indices together
+    private static int [] bandedPermutation(int box, Random rnd){
+        int [] bands = permutation(box, rnd);
+        int [] perm = new int[box*box];
+        for(int b = 0; b<box;b++){
+            int [] within = permutation(box, rnd);
+            for(int i = 0; i<box;i++)
+                perm[b*box + i] = bands[b]*box + within[i];
+        }
+        return perm;
+    }
+
+    private static int [] permutation(int n, Random rnd){
+        int [] p = new int[n];
+        for(int i = 0; i<n;i++)
+            p[i] = i;
+        for(int i = n-1; i>0;i--){
+            int j = rnd.nextInt(i+1);
+            int t = p[i];
+            p[i] = p[j];
+            p[j] = t;
+        }
+        return p;
+    }
+
+    static void writeCnf(File f, int numVars, List<int[]> clauses, String comment) throws IOException {
+        try(BufferedWriter w = new BufferedWriter(new FileWriter(f))){
+            w.write("c " + comment + "\n");
+            w.write("p cnf " + numVars + " " + clauses.size() + "\n");
+            for(int [] clause : clauses){
+                for(int lit : clause){
+                    w.write(Integer.toString(lit));
+                    w.write(' ');
+                }
+                w.write("0\n");
+            }
+        }
+    }
+
+    // same format SudokuSolver.getBoard reads: box dimensions, then the rows
+    static void writePuzzle(File f, int box, int [][] puzzle) throws IOException {
+        try(BufferedWriter w = new BufferedWriter(new FileWriter(f))){
+            w.write(box + " " + box + "\n");
+            for(int [] row : puzzle){
+                for(int c = 0; c<row.length;c++){
+                    if(c > 0)
+                        w.write(' ');
+                    w.write(Integer.toString(row[c]));
+                }
+                w.write("\n");
+            }
+        }
+    }
+
+    /**
+     * Writes the whole corpus and its manifest
+     * @param  dir 	directory to write to, created if needed
+     * @param  seed 	seed for every generator
+     */
+    public static void generate(File dir, long seed) throws IOException {
+        dir.mkdirs();
+        Random rnd = new Random(seed);
+        try(PrintWriter manifest = new PrintWriter(new FileWriter(new File(dir, MANIFEST)))){
+            manifest.println("# generated by bench.Corpus with seed " + seed);
+            for(int n : new int[] {50, 75, 100}){
+                int m = (int) Math.round(THRESHOLD_3SAT*n);
+                for(int i = 1; i<=5;i++){
+                    String name = "rand3-n" + n + "-" + i + ".cnf";
+                    writeCnf(new File(dir, name), n, randomKSat(n, m, 3, rnd), "uniform random 3-SAT, seed " + seed);
+                    manifest.println(name + " UNKNOWN");
+                }
+            }
+            for(int holes = 5; holes<=8;holes++){
+                String name = "php-" + (holes+1) + "-" + holes + ".cnf";
+                writeCnf(new File(dir, name), (holes+1)*holes, pigeonhole(holes), (holes+1) + " pigeons, " + holes + " holes");
+                manifest.println(name + " UNSAT");
+            }
+            for(int box = 3; box<=5;box++){
+                for(int level = 0; level<LEVELS.length;level++){
+                    for(int i = 1; i<=2;i++){
+                        String name = "sudoku" + box*box + "-" + LEVELS[level] + "-" + i;
+                        int extra = (int) Math.round(EXTRA_GIVENS[level]*box*box*box*box);
+                        writePuzzle(new File(dir, name), box, sudokuPuzzle(sudokuSolution(box, rnd), box, extra, rnd));
+                        manifest.println(name + " SAT");
+                    }
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1){
+            System.err.println("Usage: java bench.Corpus dir [seed]");
+            System.exit(1);
+        }
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        generate(new File(args[0]), seed);
+        System.out.println("corpus written to " + args[0]);
+    }
+}
@@ -0,0 +1,44 @@
+package engine;
+
+import backtrack.Formula;
+import backtrack.SATBacktrack;
+
+/**
+ * The backtracking solver from the backtrack package.
+ */
+public class BacktrackEngine implements SolverEngine {
+    // dp recurses once per assigned variable, so give it a deep stack
+    private static final long STACK_SIZE = 1L << 30;
+
+    public String name() {
+        return "backtrack";
+    }
+
+    public Result solve(Cnf cnf, long timeoutMillis) {
+        Result [] result = new Result[1];
+        Thread t = new Thread(null, () -> {
+            SATBacktrack solver = new SATBacktrack();
+            // the limit covers copying the formula too
+            solver.setTimeout(timeoutMillis);
+            try {
+                Formula formula = new Formula("cnf", cnf.numVars, cnf.clauses);
+                Status status = solver.dp(formula) ? Status.SAT
+                        : solver.timedOut() ? Status.UNKNOWN : Status.UNSAT;
+                result[0] = new Result(status, status == Status.SAT ? formula.model() : null,
+                        solver.decisions(), solver.conflicts());
+            } catch (StackOverflowError | OutOfMemoryError e) {
+                // too big for this solver, report it as undecided
+                result[0] = Result.unknown();
+            }
+        }, "backtrack", STACK_SIZE);
+        t.start();
+        try {
+            t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.unknown();
+        }
+        // any other error in the worker leaves no result
+        return result[0] != null ? result[0] : Result.unknown();
+    }
+}
@@ -0,0 +1,254 @@
+package engine;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * A CNF formula compiled to a binary file and memory-mapped, so loading it
+ * costs no parsing and the literals stay off the Java heap.
+ *
+ * File layout, little endian:
+ * <pre>
+ *   0  int   magic "BCNF"
+ *   4  int   version
+ *   8  int   number of variables
+ *  12  int   unused
+ *  16  long  number of clauses
+ *  24  long  number of literals
+ *  32  int[numLiterals]     literal pool, clause after clause, no 0 terminators
+ *      (padding to a multiple of 8)
+ *      long[numClauses+1]   index of each clause's first literal, then numLiterals
+ * </pre>
+ * Use {@link #compile} (or main) to convert a DIMACS file and {@link #open} to map one.
+ */
+public class BinaryCnf {
+    static final int MAGIC = 'B' | 'C' << 8 | 'N' << 16 | 'F' << 24;
+    static final int VERSION = 1;
+    static final int HEADER = 32;
+    // files are mapped in 1GB pieces; every field is 4 or 8 byte aligned so none straddles two
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+    private static final int BUFFER = 1 << 20;
+
+    private final MappedByteBuffer [] segments;
+    private final int numVars;
+    private final long numClauses;
+    private final long numLiterals;
+    private final long offsetBase; // file position of the clause offsets
+
+    private BinaryCnf(MappedByteBuffer [] segments) throws IOException {
+        this.segments = segments;
+        if (segments.length == 0 || segments[0].capacity() < HEADER
+                || getInt(0) != MAGIC || getInt(4) != VERSION)
+            throw new IOException("not a binary cnf file");
+        numVars = getInt(8);
+        numClauses = getLong(16);
+        numLiterals = getLong(24);
+        long size = 0;
+        for (MappedByteBuffer segment : segments) size += segment.capacity();
+        // the counts must fit the file, or reads would run past the mapping;
+        // divided rather than multiplied so a corrupt count can not overflow
+        if (numVars < 0 || numClauses < 0 || numLiterals < 0
+                || numLiterals > (size - HEADER) / 4)
+            throw new IOException("not a binary cnf file");
+        offsetBase = align8(HEADER + 4 * numLiterals);
+        if (offsetBase > size || numClauses >= (size - offsetBase) / 8)
+            throw new IOException("not a binary cnf file");
+    }
+
+    /**
+     * Maps a file written by compile.  The mapping is read only and shared
+     * with the page cache, so nothing is copied onto the heap.
+     * @param fname file name to open
+     */
+    public static BinaryCnf open(String fname) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(fname), StandardOpenOption.READ)) {
+            long size = ch.size();
+            MappedByteBuffer [] segments = new MappedByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_BITS)];
+            for (int s = 0; s < segments.length; s++) {
+                long start = (long) s << SEGMENT_BITS;
+                segments[s] = ch.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_MASK + 1, size - start));
+                segments[s].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new BinaryCnf(segments);
+        }
+    }
+
+    public int numVars() { return numVars; }
+
+    public long numClauses() { return numClauses; }
+
+    public long numLiterals() { return numLiterals; }
+
+    /** @return index in the literal pool of the first literal of clause c */
+    public long clauseStart(long c) {
+        return getLong(offsetBase + 8 * c);
+    }
+
+    /** @return index in the literal pool just past the last literal of clause c */
+    public long clauseEnd(long c) {
+        return getLong(offsetBase + 8 * (c + 1));
+    }
+
+    /** @return literal number i of the literal pool */
+    public int literal(long i) {
+        return getInt(HEADER + 4 * i);
+    }
+
+    /**
+     * Copies the formula onto the heap, for engines that need arrays.
+     */
+    public Cnf toCnf() {
+        if (numClauses > Integer.MAX_VALUE)
+            throw new IllegalStateException("too many clauses for a Cnf: " + numClauses);
+        List<int[]> clauses = new ArrayList<int[]>((int) numClauses);
+        for (long c = 0; c < numClauses; c++) {
+            long start = clauseStart(c);
+            int [] clause = new int[(int) (clauseEnd(c) - start)];
+            for (int k = 0; k < clause.length; k++) clause[k] = literal(start + k);
+            clauses.add(clause);
+        }
+        return new Cnf(numVars, clauses);
+    }
+
+    /**
+     * @param model literals of an assignment, as returned by a SolverEngine
+     * @return true iff every clause has a literal that is in model
+     */
+    public boolean satisfiedBy(int [] model) {
+        boolean [] isTrue = new boolean[2 * numVars + 2];
+        for (int lit : model)
+            if (lit != 0 && Math.abs(lit) <= numVars) isTrue[lit > 0 ? 2 * lit : -2 * lit + 1] = true;
+        for (long c = 0; c < numClauses; c++) {
+            boolean sat = false;
+            for (long i = clauseStart(c), end = clauseEnd(c); i < end && !sat; i++) {
+                int lit = literal(i);
+                sat = isTrue[lit > 0 ? 2 * lit : -2 * lit + 1];
+            }
+            if (!sat) return false;
+        }
+        return true;
+    }
+
+    private int getInt(long pos) {
+        return segments[(int) (pos >>> SEGMENT_BITS)].getInt((int) (pos & SEGMENT_MASK));
+    }
+
+    private long getLong(long pos) {
+        return segments[(int) (pos >>> SEGMENT_BITS)].getLong((int) (pos & SEGMENT_MASK));
+    }
+
+    private static long align8(long pos) {
+        return (pos + 7) & ~7L;
+    }
+
+    /**
+     * Converts a DIMACS cnf file to the binary format in one streaming pass.
+     * Literals go straight to out; clause offsets are spooled to a temporary
+     * file and appended at the end, so memory use does not grow with the formula.
+     * @param dimacs DIMACS file to read
+     * @param out binary file to write
+     */
+    public static void compile(String dimacs, String out) throws IOException {
+        Path spool = Files.createTempFile("bcnf", ".offsets");
+        try (InputStream in = new BufferedInputStream(new FileInputStream(dimacs), BUFFER);
+             FileChannel lits = FileChannel.open(Paths.get(out), StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             FileChannel offsets = FileChannel.open(spool, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer litBuf = ByteBuffer.allocateDirect(BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer offBuf = ByteBuffer.allocateDirect(BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+            lits.position(HEADER);
+            int numVars = 0;
+            long numClauses = 0, numLiterals = 0;
+            boolean inClause = false;
+            int c = in.read();
+            while (c != -1) {
+                if (c == 'c' || c == 'p') { // comment or problem line
+                    StringBuilder line = new StringBuilder();
+                    while (c != -1 && c != '\n') { line.append((char) c); c = in.read(); }
+                    if (line.charAt(0) == 'p') {
+                        String [] token = line.toString().trim().split("\\s+");
+                        if (token.length < 4 || !token[1].equals("cnf"))
+                            throw new IOException("bad problem line: " + line);
+                        numVars = Integer.parseInt(token[2]);
+                    }
+                } else if (c == '%') { // SATLIB end of data marker
+                    break;
+                } else if (c == '-' || (c >= '0' && c <= '9')) {
+                    boolean neg = c == '-';
+                    if (neg) c = in.read();
+                    int lit = 0;
+                    while (c >= '0' && c <= '9') { lit = lit * 10 + (c - '0'); c = in.read(); }
+                    if (lit == 0 && inClause) { // end of clause
+                        inClause = false;
+                        continue;
+                    }
+                    if (!inClause) {
+                        inClause = true;
+                        numClauses++;
+                        if (!offBuf.hasRemaining()) drain(offBuf, offsets);
+                        offBuf.putLong(numLiterals);
+                    }
+                    if (lit == 0) { // a 0 on its own is an empty clause
+                        inClause = false;
+                        continue;
+                    }
+                    if (!litBuf.hasRemaining()) drain(litBuf, lits);
+                    litBuf.putInt(neg ? -lit : lit);
+                    numLiterals++;
+                    continue;
+                } else if (!Character.isWhitespace(c)) {
+                    throw new IOException("unexpected character '" + (char) c + "' in " + dimacs);
+                }
+                c = in.read();
+            }
+            if (inClause) throw new IOException("last clause of " + dimacs + " has no terminating 0");
+
+            // pad, append the offsets, then fill in the header
+            if ((numLiterals & 1) != 0) {
+                if (!litBuf.hasRemaining()) drain(litBuf, lits);
+                litBuf.putInt(0);
+            }
+            drain(litBuf, lits);
+            if (!offBuf.hasRemaining()) drain(offBuf, offsets);
+            offBuf.putLong(numLiterals);
+            drain(offBuf, offsets);
+            long size = offsets.position();
+            for (long done = 0; done < size; )
+                done += offsets.transferTo(done, size - done, lits);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(numVars).putInt(0)
+                    .putLong(numClauses).putLong(numLiterals).flip();
+            for (long pos = 0; header.hasRemaining(); ) pos += lits.write(header, pos);
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    private static void drain(ByteBuffer buf, FileChannel ch) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+
+    /**
+     * Usage: java engine.BinaryCnf in.cnf out.bcnf
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java engine.BinaryCnf in.cnf out.bcnf");
+            System.exit(1);
+        }
+        long start = System.currentTimeMillis();
+        compile(args[0], args[1]);
+        BinaryCnf f = open(args[1]);
+        System.out.println(args[1] + ": " + f.numVars() + " variables, " + f.numClauses() + " clauses, "
+                + f.numLiterals() + " literals, took " + (System.currentTimeMillis() - start) + " ms");
+    }
+}
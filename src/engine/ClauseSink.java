@@ -0,0 +1,14 @@
+package engine;
+
+/**
+ * Something clauses can be streamed into one at a time, such as a solver or
+ * a DIMACS file.  Implementations copy what they need, so callers may reuse
+ * the array.
+ */
+public interface ClauseSink {
+
+    /**
+       Adds the clause made of lits[from..to), without a 0 terminator.
+    */
+    void add(int [] lits, int from, int to);
+}
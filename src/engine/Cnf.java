@@ -0,0 +1,83 @@
+package engine;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * A CNF formula held in memory: variables are 1..numVars, each clause is an
+ * array of DIMACS literals without the terminating 0.
+ */
+public class Cnf {
+    static final char COMMENT = 'c';
+
+    public final int numVars;
+    public final List<int[]> clauses;
+
+    public Cnf(int numVars, List<int[]> clauses) {
+        this.numVars = numVars;
+        this.clauses = clauses;
+    }
+
+    /**
+     * Loads a DIMACS cnf file, clauses may have any length.
+     * @param fname file name to open
+     */
+    public static Cnf read(String fname) throws IOException {
+        try (BufferedReader in = new BufferedReader(new FileReader(fname))) {
+            int numVars = 0;
+            List<int[]> clauses = new ArrayList<int[]>();
+            int [] tmp = new int[16];
+            int len = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.charAt(0) == COMMENT)
+                    continue;
+                if (line.charAt(0) == '%') // SATLIB end of data marker, a lone 0 follows it
+                    break;
+                if (line.charAt(0) == 'p') {
+                    String[] token = line.split("\\s+");
+                    if (token.length < 4 || !token[1].equals("cnf"))
+                        throw new IOException("bad problem line: " + line);
+                    numVars = Integer.parseInt(token[2]);
+                    clauses = new ArrayList<int[]>(Integer.parseInt(token[3]));
+                    continue;
+                }
+                for (String t : line.split("\\s+")) {
+                    int lit = Integer.parseInt(t);
+                    if (lit == 0) { // end of clause
+                        clauses.add(Arrays.copyOf(tmp, len));
+                        len = 0;
+                    } else {
+                        if (len == tmp.length) tmp = Arrays.copyOf(tmp, len * 2);
+                        tmp[len++] = lit;
+                    }
+                }
+            }
+            if (len > 0) throw new IOException("last clause of " + fname + " has no terminating 0");
+            return new Cnf(numVars, clauses);
+        }
+    }
+
+    /**
+     * @param model literals of an assignment, as returned by a SolverEngine
+     * @return true iff every clause has a literal that is in model
+     */
+    public boolean satisfiedBy(int [] model) {
+        boolean [] isTrue = new boolean[2 * numVars + 2];
+        for (int lit : model)
+            if (lit != 0 && Math.abs(lit) <= numVars) isTrue[index(lit)] = true;
+        for (int [] clause : clauses) {
+            boolean sat = false;
+            for (int lit : clause) {
+                if (isTrue[index(lit)]) { sat = true; break; }
+            }
+            if (!sat) return false;
+        }
+        return true;
+    }
+
+    private int index(int lit) {
+        return lit > 0 ? 2 * lit : -2 * lit + 1;
+    }
+}
@@ -0,0 +1,68 @@
+package engine;
+
+import java.io.IOException;
+import java.util.*;
+
+import sat4j.SudokuSolver;
+
+/**
+ * Runs one workload on several engines in the same JVM and prints the status,
+ * time and whether the model checks out for each.
+ *
+ * Usage: java engine.Compare [-timeout ms] file.cnf|file.bcnf|puzzle [engine ...]
+ * Files ending in .cnf are read as DIMACS, .bcnf are mapped as BinaryCnf,
+ * anything else is read as a Sudoku puzzle.
+ * Engines default to sat4j and backtrack, see SolverEngine.byName.
+ */
+public class Compare {
+
+    public static void main(String[] args) throws Exception {
+        int a = 0;
+        long timeout = 0;
+        if (args.length > 1 && args[0].equals("-timeout")) {
+            timeout = Long.parseLong(args[1]);
+            a = 2;
+        }
+        if (args.length <= a) {
+            System.err.println("Usage: java engine.Compare [-timeout ms] file.cnf|file.bcnf|puzzle [engine ...]");
+            System.exit(1);
+        }
+        String file = args[a++];
+        List<String> engines = a < args.length
+                ? Arrays.asList(args).subList(a, args.length)
+                : Arrays.asList("sat4j", "backtrack");
+
+        if (file.endsWith(".bcnf")) {
+            BinaryCnf bcnf = BinaryCnf.open(file);
+            System.out.println(file + ": " + bcnf.numVars() + " variables, " + bcnf.numClauses() + " clauses");
+            for (String name : engines) {
+                SolverEngine engine = SolverEngine.byName(name);
+                long start = System.nanoTime();
+                SolverEngine.Result r = engine.solve(bcnf, timeout);
+                report(engine, r, System.nanoTime() - start, r.model != null && bcnf.satisfiedBy(r.model));
+            }
+            return;
+        }
+
+        Cnf cnf;
+        if (file.endsWith(".cnf")) {
+            cnf = Cnf.read(file);
+        } else {
+            if (!SudokuSolver.getBoard(file))
+                throw new IOException("could not read a board from " + file);
+            cnf = SudokuSolver.encode();
+        }
+        System.out.println(file + ": " + cnf.numVars + " variables, " + cnf.clauses.size() + " clauses");
+        for (String name : engines) {
+            SolverEngine engine = SolverEngine.byName(name);
+            long start = System.nanoTime();
+            SolverEngine.Result r = engine.solve(cnf, timeout);
+            report(engine, r, System.nanoTime() - start, r.model != null && cnf.satisfiedBy(r.model));
+        }
+    }
+
+    private static void report(SolverEngine engine, SolverEngine.Result r, long nanos, boolean modelOk) {
+        String check = r.status == SolverEngine.Status.SAT ? (modelOk ? "model ok" : "MODEL WRONG") : "";
+        System.out.printf("%-20s %-8s %10.1f ms  %s%n", engine.name(), r.status, nanos / 1e6, check);
+    }
+}
@@ -0,0 +1,96 @@
+package engine;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+/**
+ * Writes a DIMACS cnf file through a FileChannel as clauses arrive, without
+ * building Strings.  The clause count is not needed up front: the problem
+ * line is written with room for it and filled in by close.
+ */
+public class DimacsWriter implements ClauseSink, Closeable {
+    private static final int BUFFER = 1 << 20;
+    // wide enough for any long
+    private static final int COUNT_WIDTH = 20;
+
+    private final FileChannel ch;
+    private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER);
+    private final byte [] digits = new byte[12];
+    private final int numVars;
+    private long clauses;
+
+    /**
+     * @param file file to create or overwrite
+     * @param numVars number of variables for the problem line
+     */
+    public DimacsWriter(Path file, int numVars) throws IOException {
+        this.numVars = numVars;
+        ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buf.put(header(0));
+    }
+
+    // "p cnf <vars> <clauses>" with the clause count right aligned in COUNT_WIDTH
+    private byte [] header(long count) {
+        String c = Long.toString(count);
+        StringBuilder sb = new StringBuilder("p cnf ").append(numVars).append(' ');
+        for (int i = c.length(); i < COUNT_WIDTH; i++) sb.append(' ');
+        return sb.append(c).append('\n').toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public void add(int [] lits, int from, int to) {
+        try {
+            for (int i = from; i < to; i++) {
+                if (buf.remaining() < digits.length + 1) drain();
+                putInt(lits[i]);
+                buf.put((byte) ' ');
+            }
+            if (buf.remaining() < 2) drain();
+            buf.put((byte) '0').put((byte) '\n');
+            clauses++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** @return clauses written so far */
+    public long clauses() {
+        return clauses;
+    }
+
+    private void putInt(int v) {
+        long x = v;
+        if (x < 0) {
+            buf.put((byte) '-');
+            x = -x;
+        }
+        int i = digits.length;
+        do {
+            digits[--i] = (byte) ('0' + x % 10);
+            x /= 10;
+        } while (x != 0);
+        buf.put(digits, i, digits.length - i);
+    }
+
+    private void drain() throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+
+    /**
+       Flushes, fills in the clause count and closes the file.
+    */
+    public void close() throws IOException {
+        try {
+            drain();
+            ByteBuffer h = ByteBuffer.wrap(header(clauses));
+            for (long pos = 0; h.hasRemaining(); ) pos += ch.write(h, pos);
+        } finally {
+            ch.close();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package engine;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A native solver binary (kissat, cadical, glucose, ...) run as a separate process.
+ * The formula is written to a temporary DIMACS file which is passed as the last
+ * argument; the answer is read from SAT competition style output,
+ * "s SATISFIABLE" followed by "v" lines holding the model.
+ */
+public class ExternalEngine implements SolverEngine {
+    private final String [] command;
+
+    /**
+     * @param command the solver binary and any arguments before the file name
+     */
+    public ExternalEngine(String... command) {
+        this.command = command;
+    }
+
+    public String name() {
+        return "external:" + String.join(" ", command);
+    }
+
+    public Result solve(Cnf cnf, long timeoutMillis) {
+        File in = null, out = null;
+        Process p = null;
+        try {
+            in = File.createTempFile("engine", ".cnf");
+            out = File.createTempFile("engine", ".out");
+            write(cnf, in);
+            List<String> cmd = new ArrayList<String>(Arrays.asList(command));
+            cmd.add(in.getPath());
+            p = new ProcessBuilder(cmd).redirectErrorStream(true).redirectOutput(out).start();
+            if (timeoutMillis > 0) {
+                if (!p.waitFor(timeoutMillis, TimeUnit.MILLISECONDS))
+                    return Result.unknown();
+            } else {
+                p.waitFor();
+            }
+            return parse(out, cnf.numVars);
+        } catch (IOException e) {
+            System.err.println(name() + ": " + e);
+            return Result.unknown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.unknown();
+        } finally {
+            if (p != null) p.destroyForcibly();
+            if (in != null) in.delete();
+            if (out != null) out.delete();
+        }
+    }
+
+    private static void write(Cnf cnf, File f) throws IOException {
+        try (BufferedWriter w = new BufferedWriter(new FileWriter(f))) {
+            w.write("p cnf " + cnf.numVars + " " + cnf.clauses.size() + "\n");
+            for (int [] clause : cnf.clauses) {
+                for (int lit : clause) {
+                    w.write(Integer.toString(lit));
+                    w.write(' ');
+                }
+                w.write("0\n");
+            }
+        }
+    }
+
+    private static Result parse(File f, int numVars) throws IOException {
+        Status status = Status.UNKNOWN;
+        int [] model = new int[numVars];
+        for (int i = 0; i < numVars; i++) model[i] = -(i + 1); // unlisted vars are false
+        try (BufferedReader r = new BufferedReader(new FileReader(f))) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.startsWith("s ")) {
+                    String s = line.substring(2).trim();
+                    if (s.equals("SATISFIABLE")) status = Status.SAT;
+                    else if (s.equals("UNSATISFIABLE")) status = Status.UNSAT;
+                } else if (line.startsWith("v ")) {
+                    for (String t : line.substring(2).trim().split("\\s+")) {
+                        int lit = Integer.parseInt(t);
+                        if (lit != 0 && Math.abs(lit) <= numVars) model[Math.abs(lit) - 1] = lit;
+                    }
+                }
+            }
+        }
+        return status == Status.SAT ? new Result(status, model) : new Result(status, null);
+    }
+}
@@ -0,0 +1,112 @@
+package engine;
+
+import java.util.Map;
+
+import org.sat4j.core.VecInt;
+import org.sat4j.minisat.SolverFactory;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.IVecInt;
+import org.sat4j.specs.TimeoutException;
+
+/**
+ * sat4j's default minisat solver.
+ */
+public class Sat4jEngine implements SolverEngine {
+
+    public String name() {
+        return "sat4j";
+    }
+
+    public Result solve(Cnf cnf, long timeoutMillis) {
+        ISolver solver = newSolver(cnf.numVars, cnf.clauses.size(), timeoutMillis);
+        // sat4j copies the literals, so one vector is reused for every clause
+        IVecInt lits = new VecInt();
+        try {
+            for (int [] clause : cnf.clauses) {
+                lits.clear();
+                for (int lit : clause) lits.push(lit);
+                solver.addClause(lits);
+            }
+        } catch (ContradictionException e) {
+            // trivially unsatisfiable, found while adding clauses
+            return Result.unsat();
+        }
+        return solve(solver);
+    }
+
+    /**
+       Clauses are pushed from the mapping straight into sat4j, without an
+       int[] per clause in between.
+    */
+    public Result solve(BinaryCnf cnf, long timeoutMillis) {
+        ISolver solver = newSolver(cnf.numVars(), (int) Math.min(cnf.numClauses(), Integer.MAX_VALUE), timeoutMillis);
+        IVecInt lits = new VecInt();
+        try {
+            for (long c = 0; c < cnf.numClauses(); c++) {
+                lits.clear();
+                for (long i = cnf.clauseStart(c), end = cnf.clauseEnd(c); i < end; i++)
+                    lits.push(cnf.literal(i));
+                solver.addClause(lits);
+            }
+        } catch (ContradictionException e) {
+            return Result.unsat();
+        }
+        return solve(solver);
+    }
+
+    /**
+       Clauses go into sat4j as they are added.
+    */
+    public Session open(int numVars) {
+        ISolver solver = newSolver(numVars, 0, 0);
+        IVecInt lits = new VecInt();
+        return new Session() {
+            boolean contradiction;
+
+            public void add(int [] clause, int from, int to) {
+                if (contradiction) return;
+                lits.clear();
+                for (int i = from; i < to; i++) lits.push(clause[i]);
+                try {
+                    solver.addClause(lits);
+                } catch (ContradictionException e) {
+                    contradiction = true;
+                }
+            }
+
+            public Result solve(long timeoutMillis) {
+                if (contradiction) return Result.unsat();
+                if (timeoutMillis > 0) solver.setTimeoutMs(timeoutMillis);
+                return Sat4jEngine.solve(solver);
+            }
+        };
+    }
+
+    private static ISolver newSolver(int numVars, int numClauses, long timeoutMillis) {
+        ISolver solver = SolverFactory.newDefault();
+        solver.newVar(numVars);
+        if (numClauses > 0)
+            solver.setExpectedNumberOfClauses(numClauses);
+        if (timeoutMillis > 0)
+            solver.setTimeoutMs(timeoutMillis);
+        return solver;
+    }
+
+    private static Result solve(ISolver solver) {
+        Status status;
+        try {
+            status = solver.isSatisfiable() ? Status.SAT : Status.UNSAT;
+        } catch (TimeoutException e) {
+            status = Status.UNKNOWN;
+        }
+        Map<String, Number> stat = solver.getStat();
+        return new Result(status, status == Status.SAT ? solver.model() : null,
+                count(stat, "decisions"), count(stat, "conflicts"));
+    }
+
+    private static long count(Map<String, Number> stat, String key) {
+        Number n = stat.get(key);
+        return n == null ? -1 : n.longValue();
+    }
+}
@@ -0,0 +1,97 @@
+package engine;
+
+import java.util.*;
+
+/**
+ * A SAT solver that takes a formula in memory, so the same workload can be
+ * run on any engine.
+ */
+public interface SolverEngine {
+
+    /** Outcome of a solve call */
+    enum Status { SAT, UNSAT, UNKNOWN }
+
+    /** Status plus, for SAT, the model */
+    class Result {
+        public final Status status;
+        /** literal i or -i for every variable i, like sat4j's findModel; null unless SAT */
+        public final int [] model;
+        /** search counters reported by the engine, -1 when it does not report them */
+        public final long decisions;
+        public final long conflicts;
+
+        public Result(Status status, int [] model) {
+            this(status, model, -1, -1);
+        }
+
+        public Result(Status status, int [] model, long decisions, long conflicts) {
+            this.status = status;
+            this.model = model;
+            this.decisions = decisions;
+            this.conflicts = conflicts;
+        }
+
+        public static Result unsat() { return new Result(Status.UNSAT, null); }
+        public static Result unknown() { return new Result(Status.UNKNOWN, null); }
+    }
+
+    /** A formula being loaded into an engine clause by clause */
+    interface Session extends ClauseSink {
+        /**
+           Solve the clauses added so far, giving up after timeoutMillis (0 for no limit).
+        */
+        Result solve(long timeoutMillis);
+    }
+
+    /** @return short name used on the command line and in reports */
+    String name();
+
+    /**
+       Solve cnf, giving up with UNKNOWN after timeoutMillis (0 for no limit).
+    */
+    Result solve(Cnf cnf, long timeoutMillis);
+
+    default Result solve(Cnf cnf) {
+        return solve(cnf, 0);
+    }
+
+    /**
+       Solve a memory-mapped formula.  By default it is copied onto the heap
+       first; engines that can read clauses in place override this.
+    */
+    default Result solve(BinaryCnf cnf, long timeoutMillis) {
+        return solve(cnf.toCnf(), timeoutMillis);
+    }
+
+    /**
+       Start loading a formula with numVars variables.  By default clauses are
+       collected into a Cnf and solved with solve(Cnf); engines that can take
+       clauses as they arrive override this.
+    */
+    default Session open(int numVars) {
+        List<int[]> clauses = new ArrayList<int[]>();
+        return new Session() {
+            public void add(int [] lits, int from, int to) {
+                clauses.add(Arrays.copyOfRange(lits, from, to));
+            }
+
+            public Result solve(long timeoutMillis) {
+                return SolverEngine.this.solve(new Cnf(numVars, clauses), timeoutMillis);
+            }
+        };
+    }
+
+    /**
+     * @param name "sat4j", "backtrack" or "external:command args..." for a native
+     * solver binary
+     */
+    static SolverEngine byName(String name) {
+        if (name.equals("sat4j"))
+            return new Sat4jEngine();
+        if (name.equals("backtrack"))
+            return new BacktrackEngine();
+        if (name.startsWith("external:"))
+            return new ExternalEngine(name.substring("external:".length()).trim().split("\\s+"));
+        throw new IllegalArgumentException("unknown engine " + name);
+    }
+}
@@ -0,0 +1,165 @@
+package sat4j;
+
+/**
+ * "At most one of these literals is true" constraints in CNF.
+ *
+ * PAIRWISE needs no extra variables but O(n^2) clauses per unit.  The other
+ * encodings add auxiliary variables to get O(n) clauses; those variables are
+ * numbered upwards from the first free variable given to the constructor.
+ */
+
+import java.util.*;
+
+import engine.ClauseSink;
+
+public class AtMostOne {
+    /** available encodings */
+    public enum Encoding { PAIRWISE, SEQUENTIAL, COMMANDER, PRODUCT }
+
+    //recursive encodings use pairwise clauses below this many literals
+    private static final int PAIRWISE_LIMIT = 6;
+    //literals per commander variable
+    private static final int GROUP_SIZE = 3;
+
+    private final Encoding encoding;
+    //next unused variable
+    private int nextVar;
+    //binary clauses are built here and copied by the sink, so no array is allocated per clause
+    private final int [] clause = new int[2];
+
+    /**
+     * @param  encoding 	encoding to use
+     * @param  firstFreeVar 	first variable that may be used as an auxiliary variable
+     */
+    public AtMostOne(Encoding encoding, int firstFreeVar){
+        this.encoding = encoding;
+        this.nextVar = firstFreeVar;
+    }
+
+    /**
+     * @return the first variable not used by this encoder so far
+     */
+    public int nextVar(){
+        return nextVar;
+    }
+
+    /**
+     * Adds clauses saying at most one of lits is true
+     * @param  lits 	the literals
+     * @param  out 	list the clauses are added to
+     */
+    public void encode(int [] lits, List<int[]> out){
+        encode(lits, (c, from, to) -> out.add(Arrays.copyOfRange(c, from, to)));
+    }
+
+    /**
+     * Adds clauses saying at most one of lits is true
+     * @param  lits 	the literals
+     * @param  out 	sink the clauses are streamed to
+     */
+    public void encode(int [] lits, ClauseSink out){
+        switch(encoding){
+            case SEQUENTIAL:
+                sequential(lits, out);
+                break;
+            case COMMANDER:
+                commander(lits, out);
+                break;
+            case PRODUCT:
+                product(lits, out);
+                break;
+            default:
+                pairwise(lits, out);
+        }
+    }
+
+    /**
+     * @param  encoding 	encoding to use
+     * @param  size 	number of literals
+     * @return auxiliary variables one constraint over size literals uses
+     */
+    public static int auxVars(Encoding encoding, int size){
+        AtMostOne counter = new AtMostOne(encoding, size+1);
+        int [] lits = new int[size];
+        for(int i = 0; i<size;i++)
+            lits[i] = i+1;
+        counter.encode(lits, (c, from, to) -> { });
+        return counter.nextVar - (size+1);
+    }
+
+    private void add(ClauseSink out, int a, int b){
+        clause[0] = a;
+        clause[1] = b;
+        out.add(clause, 0, 2);
+    }
+
+    // no two literals are both true
+    private void pairwise(int [] lits, ClauseSink out){
+        for(int i = 0; i<lits.length;i++){
+            for(int j = i+1; j<lits.length;j++){
+                add(out, -lits[i], -lits[j]);
+            }
+        }
+    }
+
+    // sequential counter (Sinz 2005): s+i is true once one of lits[0..i] is true
+    private void sequential(int [] lits, ClauseSink out){
+        int n = lits.length;
+        if(n < 2)
+            return;
+        int s = nextVar;
+        nextVar += n-1;
+        add(out, -lits[0], s);
+        for(int i = 1; i<n-1;i++){
+            add(out, -lits[i], s+i);
+            add(out, -(s+i-1), s+i);
+            add(out, -lits[i], -(s+i-1));
+        }
+        add(out, -lits[n-1], -(s+n-2));
+    }
+
+    // commander encoding (Klieber and Kwon 2007): a true literal forces its group's
+    // commander, at most one per group, then at most one commander recursively
+    private void commander(int [] lits, ClauseSink out){
+        if(lits.length <= PAIRWISE_LIMIT){
+            pairwise(lits, out);
+            return;
+        }
+        int groups = (lits.length + GROUP_SIZE - 1) / GROUP_SIZE;
+        int [] commanders = new int[groups];
+        for(int g = 0; g<groups;g++){
+            int from = g*GROUP_SIZE;
+            int [] group = Arrays.copyOfRange(lits, from, Math.min(from+GROUP_SIZE, lits.length));
+            commanders[g] = nextVar++;
+            pairwise(group, out);
+            for(int lit : group){
+                add(out, -lit, commanders[g]);
+            }
+        }
+        commander(commanders, out);
+    }
+
+    // product encoding (Chen 2010): lay the literals out on a p x q grid, a true
+    // literal forces its row and column variable, then at most one row and one column
+    private void product(int [] lits, ClauseSink out){
+        int n = lits.length;
+        if(n <= PAIRWISE_LIMIT){
+            pairwise(lits, out);
+            return;
+        }
+        int p = (int) Math.ceil(Math.sqrt(n));
+        int q = (n + p - 1) / p;
+        int [] rows = new int[p];
+        int [] cols = new int[q];
+        for(int i = 0; i<p;i++)
+            rows[i] = nextVar++;
+        for(int j = 0; j<q;j++)
+            cols[j] = nextVar++;
+        for(int k = 0; k<n;k++){
+            add(out, -lits[k], rows[k/q]);
+            add(out, -lits[k], cols[k%q]);
+        }
+        product(rows, out);
+        product(cols, out);
+    }
+}
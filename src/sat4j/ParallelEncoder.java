@@ -0,0 +1,242 @@
+package sat4j;
+
+/**
+ * Encodes a board the way SudokuSolver.encodeBoard does, but for big boards:
+ * the givens and the cell, row, column and box constraint families are
+ * generated on several threads into fixed size int buffers, and the buffers
+ * are streamed to a ClauseSink (a solver, a DimacsWriter, ...) on the calling
+ * thread.  Only 2 x threads buffers ever exist, so memory stays bounded
+ * however big the board is, and no int[] is allocated per clause.
+ *
+ * Cell variables are SudokuSolver.var(row, col, val).  Unit u (cells, then
+ * rows, columns and boxes, n*n units each) gets its auxiliary variables from
+ * n^3 + 1 + u*aux on, so threads never share a counter.  Clauses arrive in
+ * whatever order the threads produce them.
+ */
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import engine.ClauseSink;
+
+public class ParallelEncoder {
+    //ints in a buffer before it is handed to the sink
+    private static final int CHUNK = 1 << 16;
+    //marks a producer task as finished
+    private static final ClauseBuffer END = new ClauseBuffer(0);
+
+    private final int [][] board;
+    private final int boxRows;
+    private final int boxCols;
+    private final int size;
+    private final AtMostOne.Encoding encoding;
+    private final int threads;
+    //auxiliary variables per unit
+    private final int aux;
+
+    /**
+     * @param  board 	the puzzle, 0 for an empty cell
+     * @param  boxRows 	number of rows in one box
+     * @param  boxCols 	number of columns in one box
+     * @param  encoding 	encoding of the at most one constraints
+     * @param  threads 	number of producer threads
+     */
+    public ParallelEncoder(int [][] board, int boxRows, int boxCols, AtMostOne.Encoding encoding, int threads){
+        this.board = board;
+        this.boxRows = boxRows;
+        this.boxCols = boxCols;
+        this.size = boxRows*boxCols;
+        this.encoding = encoding;
+        this.threads = Math.max(1, threads);
+        this.aux = AtMostOne.auxVars(encoding, size);
+    }
+
+    /**
+     * @return number of variables of the encoding, known before encoding
+     */
+    public int numVars(){
+        return size*size*size + 4*size*size*aux;
+    }
+
+    /**
+     * clauses packed one after the other, each followed by a 0
+     */
+    private static class ClauseBuffer implements ClauseSink {
+        final int [] lits;
+        int len;
+        int clauses;
+
+        ClauseBuffer(int capacity){
+            lits = new int[capacity];
+        }
+
+        public void add(int [] clause, int from, int to){
+            System.arraycopy(clause, from, lits, len, to-from);
+            len += to-from;
+            lits[len++] = 0;
+            clauses++;
+        }
+
+        void drainTo(ClauseSink sink){
+            int start = 0;
+            for(int i = 0; i<len;i++){
+                if(lits[i] == 0){
+                    sink.add(lits, start, i);
+                    start = i+1;
+                }
+            }
+            len = 0;
+            clauses = 0;
+        }
+    }
+
+    /**
+     * what a producer task writes to: its current buffer, swapped for an
+     * empty one from the pool whenever it fills up
+     */
+    private static class Producer implements ClauseSink {
+        private final BlockingQueue<ClauseBuffer> free;
+        private final BlockingQueue<ClauseBuffer> full;
+        private ClauseBuffer current;
+
+        Producer(BlockingQueue<ClauseBuffer> free, BlockingQueue<ClauseBuffer> full) throws InterruptedException {
+            this.free = free;
+            this.full = full;
+            this.current = free.take();
+        }
+
+        public void add(int [] clause, int from, int to){
+            current.add(clause, from, to);
+            if(current.len >= CHUNK){
+                try{
+                    full.put(current);
+                    //the buffer now belongs to the sink, so finish must not hand it over again
+                    current = null;
+                    current = free.take();
+                }
+                catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("encoding interrupted");
+                }
+            }
+        }
+
+        void finish() throws InterruptedException {
+            if(current != null)
+                full.put(current);
+            full.put(END);
+        }
+    }
+
+    /**
+     * Encodes the board, streaming every clause to sink.  sink is only
+     * called from this thread.
+     * @param  sink 	where the clauses go
+     * @return number of clauses
+     */
+    public long encode(ClauseSink sink) throws InterruptedException {
+        BlockingQueue<ClauseBuffer> free = new ArrayBlockingQueue<ClauseBuffer>(2*threads);
+        BlockingQueue<ClauseBuffer> full = new LinkedBlockingQueue<ClauseBuffer>();
+        //room for one more clause past CHUNK, the longest being size literals and a 0
+        for(int i = 0; i<2*threads;i++)
+            free.put(new ClauseBuffer(CHUNK + size + 1));
+
+        //the givens, then the four families split by row or value
+        List<Integer> tasks = new ArrayList<Integer>();
+        tasks.add(-1);
+        for(int t = 0; t<4*size;t++)
+            tasks.add(t);
+
+        AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long clauses = 0;
+        try{
+            for(int task : tasks){
+                pool.execute(() -> {
+                    Producer out = null;
+                    try{
+                        out = new Producer(free, full);
+                        if(task < 0)
+                            givens(out);
+                        else
+                            family(task / size, task % size, out);
+                    }
+                    catch(Throwable t){
+                        error.compareAndSet(null, t);
+                    }
+                    finally{
+                        try{
+                            if(out != null)
+                                out.finish();
+                            else
+                                full.put(END);
+                        }
+                        catch(InterruptedException e){
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            }
+            int done = 0;
+            while(done < tasks.size()){
+                ClauseBuffer b = full.take();
+                if(b == END){
+                    done++;
+                    continue;
+                }
+                clauses += b.clauses;
+                b.drainTo(sink);
+                free.put(b);
+            }
+        }
+        finally{
+            pool.shutdownNow();
+        }
+        if(error.get() != null)
+            throw new IllegalStateException("encoding failed", error.get());
+        return clauses;
+    }
+
+    // unit clauses for the preexisting numbers
+    private void givens(ClauseSink out){
+        int [] unit = new int[1];
+        for(int row = 1; row <= size; row ++){
+            for(int col = 1; col <= size; col ++){
+                int cell = board[row-1][col-1];
+                if(cell != 0){
+                    unit[0] = SudokuSolver.var(row, col, cell, size);
+                    out.add(unit, 0, 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Exactly one constraints for size units of one family
+     * @param  family 	0 cells, 1 rows, 2 columns, 3 boxes
+     * @param  k 	the row (cells) or value index (others), 0-based
+     */
+    private void family(int family, int k, ClauseSink out){
+        int [] lits = new int[size];
+        for(int j = 0; j<size;j++){
+            for(int m = 0; m<size;m++){
+                int row, col, val;
+                switch(family){
+                    case 0: row = k; col = j; val = m; break;
+                    case 1: row = j; col = m; val = k; break;
+                    case 2: row = m; col = j; val = k; break;
+                    default:
+                        //box j, boxRows boxes across
+                        row = (j / boxRows)*boxRows + m / boxCols;
+                        col = (j % boxRows)*boxCols + m % boxCols;
+                        val = k;
+                }
+                lits[m] = SudokuSolver.var(row+1, col+1, val+1, size);
+            }
+            int unit = (family*size + k)*size + j;
+            out.add(lits, 0, size);
+            new AtMostOne(encoding, size*size*size + 1 + unit*aux).encode(lits, out);
+        }
+    }
+}
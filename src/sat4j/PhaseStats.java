@@ -0,0 +1,127 @@
+package sat4j;
+
+/**
+ * Time spent in each phase of solving one puzzle, plus the sizes and solver
+ * counters that go with it.  Printed as one JSON object per puzzle; Summary
+ * aggregates many puzzles into per board size latency histograms.
+ */
+
+import java.util.*;
+
+public class PhaseStats {
+    /** phases of SudokuSolver.solve, in order */
+    public enum Phase { READ, CACHE, ENCODE, WRITE, SOLVE, DECODE, CERTIFY, PRINT }
+
+    final String puzzle;
+    int boardsize;
+    long variables;
+    long clauses;
+    long bytesRead;
+    long bytesWritten;
+    //from the engine, -1 when it does not report them
+    long decisions = -1;
+    long conflicts = -1;
+    String engine;
+    String status;
+    boolean verified;
+
+    private final long [] nanos = new long[Phase.values().length];
+    private long mark;
+
+    PhaseStats(String puzzle){
+        this.puzzle = puzzle;
+        mark = System.nanoTime();
+    }
+
+    /**
+     * Charges the time since the previous end (or since construction) to phase
+     * @param  phase 	the phase that just finished
+     */
+    void end(Phase phase){
+        long now = System.nanoTime();
+        nanos[phase.ordinal()] += now - mark;
+        mark = now;
+    }
+
+    /** @return the engine's answer, CACHED, or ERROR if the puzzle could not be read */
+    public String status(){
+        return status;
+    }
+
+    /** @return true iff the solution passed certifer */
+    public boolean verified(){
+        return verified;
+    }
+
+    public long nanos(Phase phase){
+        return nanos[phase.ordinal()];
+    }
+
+    public long totalNanos(){
+        long sum = 0;
+        for(long n : nanos)
+            sum += n;
+        return sum;
+    }
+
+    /**
+     * @return this run as a single line JSON object, times in nanoseconds
+     */
+    public String toJson(){
+        StringBuilder sb = new StringBuilder("{\"puzzle\":\"");
+        for(char c : puzzle.toCharArray()){
+            if(c == '"' || c == '\\')
+                sb.append('\\');
+            sb.append(c);
+        }
+        sb.append("\",\"boardsize\":").append(boardsize)
+          .append(",\"engine\":\"").append(engine).append('"')
+          .append(",\"status\":\"").append(status).append('"')
+          .append(",\"verified\":").append(verified)
+          .append(",\"variables\":").append(variables)
+          .append(",\"clauses\":").append(clauses)
+          .append(",\"bytesRead\":").append(bytesRead)
+          .append(",\"bytesWritten\":").append(bytesWritten)
+          .append(",\"decisions\":").append(decisions)
+          .append(",\"conflicts\":").append(conflicts)
+          .append(",\"nanos\":{");
+        for(Phase p : Phase.values())
+            sb.append('"').append(p.name().toLowerCase()).append("\":").append(nanos(p)).append(',');
+        sb.append("\"total\":").append(totalNanos()).append("}}");
+        return sb.toString();
+    }
+
+    /**
+     * Latency histograms of every phase, per board size
+     */
+    public static class Summary {
+        private final Map<Integer, LatencyHistogram[]> bySize = new TreeMap<Integer, LatencyHistogram[]>();
+
+        public void add(PhaseStats run){
+            LatencyHistogram [] h = bySize.get(run.boardsize);
+            if(h == null){
+                //one per phase plus the total
+                h = new LatencyHistogram[Phase.values().length + 1];
+                for(int i = 0; i<h.length;i++)
+                    h[i] = new LatencyHistogram();
+                bySize.put(run.boardsize, h);
+            }
+            for(Phase p : Phase.values())
+                h[p.ordinal()].record(run.nanos(p));
+            h[h.length-1].record(run.totalNanos());
+        }
+
+        public void print(){
+            for(Map.Entry<Integer, LatencyHistogram[]> e : bySize.entrySet()){
+                LatencyHistogram [] h = e.getValue();
+                System.out.println(e.getKey()+"x"+e.getKey()+" boards: "+h[0].count()+" runs, milliseconds");
+                System.out.printf("%-8s %10s %10s %10s %10s %10s%n", "phase", "mean", "p50", "p90", "p99", "max");
+                for(int i = 0; i<h.length;i++){
+                    String phase = i < Phase.values().length ? Phase.values()[i].name().toLowerCase() : "total";
+                    System.out.printf("%-8s %10.3f %10.3f %10.3f %10.3f %10.3f%n", phase, h[i].mean()/1e6,
+                            h[i].percentile(0.5)/1e6, h[i].percentile(0.9)/1e6, h[i].percentile(0.99)/1e6, h[i].max()/1e6);
+                }
+            }
+        }
+    }
+}
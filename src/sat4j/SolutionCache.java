@@ -0,0 +1,316 @@
+package sat4j;
+
+/**
+ * Bounded, thread safe cache of solved puzzles, keyed on a canonical form so
+ * that a puzzle hits when it or a symmetric variant of it was solved before.
+ *
+ * The symmetries used are the ones that keep a solution valid: relabeling
+ * digits, permuting rows within a band and bands, permuting columns within a
+ * stack and stacks, and transposing (square boxes only).  Rows, columns and
+ * digits are colored by a few rounds of refinement over the givens, which no
+ * symmetry changes; rows, columns, bands and stacks are then ordered by color,
+ * and digits are relabeled by first appearance.  Lines with equal colors keep
+ * their original order, so this is cheaper than a true canonical form: a rare
+ * variant misses, but a hit is always mapped back through a valid symmetry.
+ */
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SolutionCache {
+    //color refinement rounds used to tell rows, columns and digits apart
+    private static final int REFINE_ROUNDS = 3;
+
+    /**
+     * A puzzle in canonical form, plus the symmetry taking it there
+     */
+    public static class Canonical {
+        //box shape and canonical board, one char per cell
+        final String key;
+        private final boolean transposed;
+        //canonical row i is row rows[i] of the (possibly transposed) board, same for columns
+        private final int [] rows;
+        private final int [] cols;
+        //label[d] is the canonical digit of digit d, digit[l] the reverse
+        private final int [] label;
+        private final int [] digit;
+
+        private Canonical(String key, boolean transposed, int [] rows, int [] cols, int [] label){
+            this.key = key;
+            this.transposed = transposed;
+            this.rows = rows;
+            this.cols = cols;
+            this.label = label;
+            this.digit = new int[label.length];
+            for(int d = 1; d<label.length;d++)
+                digit[label[d]] = d;
+        }
+
+        // value at canonical position i, j of board
+        private int at(int [][] board, int i, int j){
+            return transposed ? board[cols[j]][rows[i]] : board[rows[i]][cols[j]];
+        }
+
+        /** @return board (a solution of the original puzzle) in canonical form */
+        int [][] toCanonical(int [][] board){
+            int n = rows.length;
+            int [][] canon = new int[n][n];
+            for(int i = 0; i<n;i++)
+                for(int j = 0; j<n;j++)
+                    canon[i][j] = label[at(board, i, j)];
+            return canon;
+        }
+
+        /** @return canon (a canonical solution) mapped back onto the original puzzle */
+        int [][] fromCanonical(int [][] canon){
+            int n = rows.length;
+            int [][] board = new int[n][n];
+            for(int i = 0; i<n;i++){
+                for(int j = 0; j<n;j++){
+                    int d = digit[canon[i][j]];
+                    if(transposed)
+                        board[cols[j]][rows[i]] = d;
+                    else
+                        board[rows[i]][cols[j]] = d;
+                }
+            }
+            return board;
+        }
+    }
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, int[][]> map;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param  maxEntries 	solutions kept; the least recently used is evicted past that
+     */
+    public SolutionCache(int maxEntries){
+        this.maxEntries = maxEntries;
+        this.map = new LinkedHashMap<String, int[][]>(16, 0.75f, true){
+            protected boolean removeEldestEntry(Map.Entry<String, int[][]> eldest){
+                if(size() <= SolutionCache.this.maxEntries)
+                    return false;
+                evictions.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @param  puzzle 	the puzzle, 0 for an empty cell
+     * @param  boxRows 	number of rows in one box
+     * @param  boxCols 	number of columns in one box
+     * @return the canonical form of puzzle, to look up or store its solution with,
+     * or null if puzzle is not a boxRows*boxCols square board of digits 0 to boxRows*boxCols
+     */
+    public static Canonical canonicalize(int [][] puzzle, int boxRows, int boxCols){
+        int n = boxRows*boxCols;
+        if(n < 1 || puzzle == null || puzzle.length != n)
+            return null;
+        for(int [] row : puzzle){
+            if(row == null || row.length != n)
+                return null;
+            for(int d : row)
+                if(d < 0 || d > n)
+                    return null;
+        }
+        Canonical best = canonicalize(puzzle, boxRows, boxCols, false);
+        if(boxRows == boxCols){
+            Canonical t = canonicalize(puzzle, boxRows, boxCols, true);
+            if(t.key.compareTo(best.key) < 0)
+                best = t;
+        }
+        return best;
+    }
+
+    private static Canonical canonicalize(int [][] puzzle, int boxRows, int boxCols, boolean transposed){
+        int n = puzzle.length;
+        //band height and stack width once transposed
+        int bandH = transposed ? boxCols : boxRows;
+        int stackW = transposed ? boxRows : boxCols;
+        //color rows, columns and digits by their givens, then refine each color
+        //by the colors of what it meets (rows meet columns and digits, and so on)
+        long [] rowKey = new long[n];
+        long [] colKey = new long[n];
+        long [] digitKey = new long[n+1];
+        for(int r = 0; r<n;r++){
+            for(int c = 0; c<n;c++){
+                int d = cell(puzzle, r, c, transposed);
+                if(d != 0){
+                    rowKey[r]++;
+                    colKey[c]++;
+                    digitKey[d]++;
+                }
+            }
+        }
+        //scratch space for the colors a line or digit meets
+        long [] line = new long[n];
+        long [][] seen = new long[n+1][];
+        int [] count = new int[n+1];
+        for(int d = 1; d<=n;d++)
+            seen[d] = new long[(int) digitKey[d]];
+        for(int round = 0; round<REFINE_ROUNDS;round++){
+            long [] rowNext = new long[n];
+            long [] colNext = new long[n];
+            long [] digitNext = new long[n+1];
+            for(int r = 0; r<n;r++){
+                int len = 0;
+                for(int c = 0; c<n;c++){
+                    int d = cell(puzzle, r, c, transposed);
+                    if(d != 0)
+                        line[len++] = mix(colKey[c], digitKey[d]);
+                }
+                rowNext[r] = fold(rowKey[r], line, len);
+            }
+            for(int c = 0; c<n;c++){
+                int len = 0;
+                for(int r = 0; r<n;r++){
+                    int d = cell(puzzle, r, c, transposed);
+                    if(d != 0)
+                        line[len++] = mix(rowKey[r], digitKey[d]);
+                }
+                colNext[c] = fold(colKey[c], line, len);
+            }
+            Arrays.fill(count, 0);
+            for(int r = 0; r<n;r++){
+                for(int c = 0; c<n;c++){
+                    int d = cell(puzzle, r, c, transposed);
+                    if(d != 0)
+                        seen[d][count[d]++] = mix(rowKey[r], colKey[c]);
+                }
+            }
+            for(int d = 1; d<=n;d++)
+                digitNext[d] = fold(digitKey[d], seen[d], count[d]);
+            rowKey = rowNext;
+            colKey = colNext;
+            digitKey = digitNext;
+        }
+        int [] rows = order(rowKey, bandH);
+        int [] cols = order(colKey, stackW);
+
+        //relabel digits by first appearance in reading order
+        int [] label = new int[n+1];
+        int next = 1;
+        StringBuilder key = new StringBuilder(n*n + 4);
+        key.append((char) boxRows).append((char) boxCols);
+        for(int i = 0; i<n;i++){
+            for(int j = 0; j<n;j++){
+                int d = cell(puzzle, rows[i], cols[j], transposed);
+                if(d != 0 && label[d] == 0)
+                    label[d] = next++;
+                key.append((char) (d == 0 ? 0 : label[d]));
+            }
+        }
+        //digits missing from the puzzle take the remaining labels in order
+        for(int d = 1; d<=n;d++)
+            if(label[d] == 0)
+                label[d] = next++;
+        return new Canonical(key.toString(), transposed, rows, cols, label);
+    }
+
+    // order independent hash of color and the multiset of colors in met[0..len)
+    private static long fold(long color, long [] met, int len){
+        Arrays.sort(met, 0, len);
+        long h = mix(color, len);
+        for(int i = 0; i<len;i++)
+            h = mix(h, met[i]);
+        return h;
+    }
+
+    private static long mix(long a, long b){
+        long h = a * 0x9E3779B97F4A7C15L + b;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static int cell(int [][] puzzle, int r, int c, boolean transposed){
+        return transposed ? puzzle[c][r] : puzzle[r][c];
+    }
+
+    /**
+     * @return lines ordered by key within each group of size consecutive lines,
+     * and groups ordered by their sorted keys; ties keep their original order
+     */
+    private static int [] order(long [] lineKey, int size){
+        int groups = lineKey.length / size;
+        Integer [][] within = new Integer[groups][size];
+        for(int g = 0; g<groups;g++){
+            for(int k = 0; k<size;k++)
+                within[g][k] = g*size + k;
+            Arrays.sort(within[g], (x, y) -> Long.compare(lineKey[y], lineKey[x]));
+        }
+        Integer [] groupOrder = new Integer[groups];
+        for(int g = 0; g<groups;g++)
+            groupOrder[g] = g;
+        Arrays.sort(groupOrder, (x, y) -> {
+            for(int k = 0; k<size;k++){
+                int cmp = Long.compare(lineKey[within[y][k]], lineKey[within[x][k]]);
+                if(cmp != 0)
+                    return cmp;
+            }
+            return 0;
+        });
+        int [] order = new int[lineKey.length];
+        for(int g = 0; g<groups;g++)
+            for(int k = 0; k<size;k++)
+                order[g*size + k] = within[groupOrder[g]][k];
+        return order;
+    }
+
+    /**
+     * @param  puzzle 	the canonical form of a puzzle
+     * @return its cached solution mapped back onto the puzzle, or null
+     */
+    public int [][] get(Canonical puzzle){
+        int [][] canon;
+        synchronized(map){
+            canon = map.get(puzzle.key);
+        }
+        if(canon == null){
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return puzzle.fromCanonical(canon);
+    }
+
+    /**
+     * @param  puzzle 	the canonical form of a puzzle
+     * @param  solution 	a verified solution of that puzzle
+     */
+    public void put(Canonical puzzle, int [][] solution){
+        int [][] canon = puzzle.toCanonical(solution);
+        synchronized(map){
+            map.put(puzzle.key, canon);
+        }
+    }
+
+    public long hits(){
+        return hits.get();
+    }
+
+    public long misses(){
+        return misses.get();
+    }
+
+    public long evictions(){
+        return evictions.get();
+    }
+
+    public int size(){
+        synchronized(map){
+            return map.size();
+        }
+    }
+
+    public String toString(){
+        long h = hits(), m = misses();
+        return String.format("cache: %d hits, %d misses (%.1f%% hit rate), %d entries, %d evicted",
+                h, m, h + m == 0 ? 0.0 : 100.0 * h / (h + m), size(), evictions());
+    }
+}
@@ -10,43 +10,12 @@ package sat4j;
 import java.util.*;
 import java.io.*;
 import java.lang.*;
+import java.nio.file.Paths;
 
 
-import org.sat4j.minisat.SolverFactory;
-import org.sat4j.reader.DimacsReader;
-import org.sat4j.reader.ParseFormatException;
-import org.sat4j.reader.Reader;
-import org.sat4j.specs.ContradictionException;
-import org.sat4j.specs.IProblem;
-import org.sat4j.specs.ISolver;
-import org.sat4j.specs.TimeoutException;
-
-class SATSolver {
-
-    /**
-     * Returns literals that satisfy the given formula, if the formula is satisfiable.
-     *
-     * @param cnfFormulaFileName Path name of the file containing the formula
-     * @return An array of literal values denoting a satisfying assignment when one exists; null for unsatisfiable formulae.
-     * @throws ContradictionException
-     * @throws IOException
-     * @throws ParseFormatException
-     * @throws FileNotFoundException
-     * @throws TimeoutException
-     * @throws Exception
-     */
-    public static int [] solve ( String cnfFormulaFileName )  throws
-            FileNotFoundException, ParseFormatException, IOException, ContradictionException, TimeoutException
-    {
-
-        ISolver solver = SolverFactory.newDefault();
-
-        Reader reader = new DimacsReader(solver);
-        IProblem problem = reader.parseInstance(cnfFormulaFileName);
-        return problem.findModel();
-
-    }
-}
+import engine.Cnf;
+import engine.DimacsWriter;
+import engine.SolverEngine;
 
 
 public class SudokuSolver {
@@ -61,49 +30,217 @@ public class SudokuSolver {
     private static int [][] originalBoard;
     //solved puzzle stored in an 2d array
     private static int [][] solveBoard;
-    //size of formula
-    private static int numClause;
+    //number of variables in formula, including auxiliary ones
+    private static int numVars;
+    //how "at most one" constraints are encoded
+    private static AtMostOne.Encoding encoding = AtMostOne.Encoding.PAIRWISE;
     //cnf
     private static List<int[]> formula;
     //writer
     private static BufferedWriter writer = null;
     //solver assignment
     private static int [] assignment;
+    //SAT engine the formula is solved with
+    private static SolverEngine engine = SolverEngine.byName("sat4j");
+    //encoder threads, 0 to encode on this thread with encodeBoard
+    private static int threads = 0;
+    //solutions of earlier boards, null when caching is off
+    private static SolutionCache cache = new SolutionCache(10000);
+    //also write the encoding to name.cnf; the engines solve from memory, so only for inspection
+    private static boolean writeCnf = false;
+    //milliseconds the engine may spend on one board, 0 for no limit
+    private static long timeout = 0;
+    //print each board and its solution
+    private static boolean printBoards = true;
 
 
 
+    /**
+     * Usage: SudokuSolver [-encoding pairwise|sequential|commander|product] [-engine name] [-cache entries] [-threads n] [-timeout ms] [-cnf] [-stats] puzzle...
+     *    or: SudokuSolver -report puzzle
+     * engine is any name SolverEngine.byName accepts, sat4j by default.
+     * -threads encodes with a ParallelEncoder on n threads, streaming into the engine.
+     * -cache sets how many solutions are kept for repeated boards (10000 by default, 0 turns it off).
+     * -timeout stops the engine after ms milliseconds on a board, leaving it undecided.
+     * -cnf also writes each encoding to puzzle.cnf in DIMACS format.
+     * -stats prints the phase timings and counters of each puzzle as a JSON line;
+     * with more than one puzzle, latency histograms per board size are printed at the end.
+     */
     public static void main(String[]args){
-        long start = System.currentTimeMillis();
-        //gets the board
-        getBoard(args[0]);
-        //encodes the board
-        encodeBoard(sudDimY*sudDimX);
-        //turns the encoding into a text file
-        conNForm(formula);
-        //tries to solve board
-        try{
-            SATSolver ss = new SATSolver();
-
-            assignment = ss.solve(name+".cnf");
+        if(args.length > 1 && args[0].equals("-report")){
+            encodingReport(args[1]);
+            return;
         }
-
-        catch(Exception e){
-            System.out.println(e+"error occured =(");
+        boolean stats = false;
+        int a = 0;
+        for(; a < args.length - 1 && args[a].startsWith("-"); a++){
+            if(args[a].equals("-encoding"))
+                encoding = AtMostOne.Encoding.valueOf(args[++a].toUpperCase());
+            else if(args[a].equals("-engine"))
+                engine = SolverEngine.byName(args[++a]);
+            else if(args[a].equals("-cache")){
+                int entries = Integer.parseInt(args[++a]);
+                cache = entries > 0 ? new SolutionCache(entries) : null;
+            }
+            else if(args[a].equals("-threads"))
+                threads = Integer.parseInt(args[++a]);
+            else if(args[a].equals("-timeout"))
+                timeout = Long.parseLong(args[++a]);
+            else if(args[a].equals("-cnf"))
+                writeCnf = true;
+            else if(args[a].equals("-stats"))
+                stats = true;
+            else
+                break;
         }
-
-        //gets the answer
-        decode(assignment);
-        //verifies solution
+        if(a >= args.length || args[a].startsWith("-")){
+            System.out.println("Usage: SudokuSolver [-encoding pairwise|sequential|commander|product] [-engine name] [-cache entries] [-threads n] [-timeout ms] [-cnf] [-stats] puzzle...");
+            return;
+        }
+        PhaseStats.Summary summary = new PhaseStats.Summary();
+        int puzzles = args.length - a;
+        for(; a < args.length; a++){
+            PhaseStats run = solve(args[a]);
+            if(stats)
+                System.out.println(run.toJson());
+            //unreadable puzzles are left out of the latencies
+            if(!"ERROR".equals(run.status))
+                summary.add(run);
+        }
+        if(puzzles > 1){
+            summary.print();
+            if(cache != null)
+                System.out.println(cache);
+        }
+    }
+    /**
+     * Sets what solve uses, for callers other than main
+     * @param  solver 	engine the boards are solved with
+     * @param  timeoutMillis 	milliseconds the engine may spend on a board, 0 for no limit
+     * @param  cacheEntries 	solutions kept for repeated boards, 0 turns the cache off
+     * @param  print 	whether solve prints each board and its solution
+     */
+    public static void configure(SolverEngine solver, long timeoutMillis, int cacheEntries, boolean print){
+        engine = solver;
+        timeout = timeoutMillis;
+        cache = cacheEntries > 0 ? new SolutionCache(cacheEntries) : null;
+        printBoards = print;
+    }
+    /**
+     * Solves one puzzle, printing it and its solution
+     * @param  fname 	puzzle file name
+     * @return how long each phase took
+     */
+    public static PhaseStats solve(String fname){
+        PhaseStats run = new PhaseStats(fname);
+        //gets the board, skipping files that are missing or not boards
+        if(!getBoard(fname)){
+            run.engine = engine.name();
+            run.status = "ERROR";
+            run.end(PhaseStats.Phase.READ);
+            System.out.println("could not read a board from "+fname);
+            return run;
+        }
+        run.bytesRead = new File(fname).length();
+        run.boardsize = sudDimY*sudDimX;
+        run.end(PhaseStats.Phase.READ);
+        //repeats and symmetric variants of solved boards come from the cache
+        SolutionCache.Canonical key = null;
+        int [][] cached = null;
+        if(cache != null){
+            key = SolutionCache.canonicalize(originalBoard, sudDimX, sudDimY);
+            if(key != null)
+                cached = cache.get(key);
+        }
+        run.end(PhaseStats.Phase.CACHE);
+        if(cached != null){
+            solveBoard = cached;
+            run.engine = "cache";
+            run.status = "CACHED";
+            writeSolution();
+            run.bytesWritten = new File(name+"(solution).txt").length();
+            run.end(PhaseStats.Phase.DECODE);
+        }
+        else{
+            SolverEngine.Result result;
+            if(threads > 0){
+                //encodes, writes the text file if asked to and loads the solver in one streaming pass
+                result = encodeParallel(run);
+            }
+            else{
+                //encodes the board
+                encodeBoard(sudDimY*sudDimX);
+                run.variables = numVars;
+                run.clauses = formula.size();
+                run.end(PhaseStats.Phase.ENCODE);
+                //turns the encoding into a text file, if asked to
+                if(writeCnf){
+                    conNForm(formula);
+                    run.bytesWritten = new File(name+".cnf").length();
+                }
+                run.end(PhaseStats.Phase.WRITE);
+                //tries to solve board
+                result = engine.solve(new Cnf(numVars, formula), timeout);
+            }
+            assignment = result.model;
+            run.engine = engine.name();
+            run.status = result.status.name();
+            run.decisions = result.decisions;
+            run.conflicts = result.conflicts;
+            run.end(PhaseStats.Phase.SOLVE);
+            if(result.status == SolverEngine.Status.UNKNOWN && printBoards)
+                System.out.println(engine.name()+" could not decide the board");
+
+            //gets the answer
+            decode(assignment);
+            run.bytesWritten += new File(name+"(solution).txt").length();
+            run.end(PhaseStats.Phase.DECODE);
+        }
+        //verifies solution, only verified solutions are cached
+        run.verified = certifer(originalBoard, solveBoard);
+        if(key != null && cached == null && run.verified)
+            cache.put(key, solveBoard);
+        run.end(PhaseStats.Phase.CERTIFY);
+        if(!printBoards)
+            return run;
         print(originalBoard);
         System.out.println();
-        /**
-         if(certifer(originalBoard, solveBoard))
-         System.out.println("solution exists\n");
-         else
-         System.out.println("no solutions+\n");
-         */
         print(solveBoard);
-        System.out.println("\nIt took "+(System.currentTimeMillis()-start)+" milliseconds");
+        System.out.println();
+        if(run.verified)
+            System.out.println("solution verified");
+        else
+            System.out.println("solution is not valid");
+        run.end(PhaseStats.Phase.PRINT);
+        System.out.printf("%nIt took %.3f milliseconds%n", run.totalNanos()/1e6);
+        return run;
+    }
+    /**
+     * Encodes the loaded board with a ParallelEncoder, streaming the clauses
+     * into the engine (and the cnf file with -cnf) at once, then solves it.
+     * Since these overlap, all of it but the solve is timed as the encode phase.
+     * @param  run 	stats of this board
+     */
+    private static SolverEngine.Result encodeParallel(PhaseStats run){
+        ParallelEncoder encoder = new ParallelEncoder(originalBoard, sudDimX, sudDimY, encoding, threads);
+        numVars = encoder.numVars();
+        run.variables = numVars;
+        SolverEngine.Session session = engine.open(numVars);
+        try(DimacsWriter out = writeCnf ? new DimacsWriter(Paths.get(name+".cnf"), numVars) : null){
+            run.clauses = encoder.encode((lits, from, to) -> {
+                if(out != null)
+                    out.add(lits, from, to);
+                session.add(lits, from, to);
+            });
+        }
+        catch(Exception e){
+            System.out.println(e+" error occured =(");
+            return SolverEngine.Result.unknown();
+        }
+        if(writeCnf)
+            run.bytesWritten = new File(name+".cnf").length();
+        run.end(PhaseStats.Phase.ENCODE);
+        return session.solve(timeout);
     }
     /**
      * Prints the board
@@ -125,28 +262,42 @@ public class SudokuSolver {
      * @param  solution   SAT solution to sudoku
      */
     public static void decode(int [] solution){
+        if(solution == null){
+            if(printBoards)
+                System.out.println("no solution");
+            //empty the solution file, so the last run's solution is not left behind
+            try{
+                writer = new BufferedWriter(new FileWriter(name+"(solution).txt"));
+                writer.close();
+            }
+            catch(Exception e){
+                System.out.println(e+" error occured =(");
+            }
+            return;
+        }
+        int boardsize = sudDimX*sudDimY;
+        int cells = boardsize*boardsize;
+        for(int i = 0; i<solution.length;i++){
+            //positive number means that that number is the actual number for that cell
+            int v = solution[i]-1;
+            if(v >= 0 && v < cells*boardsize){
+                solveBoard[v/cells][v/boardsize%boardsize] = v%boardsize+1;
+            }
+        }
+        writeSolution();
+    }
+    /**
+     * Writes solveBoard to the solution file
+     */
+    public static void writeSolution(){
+        int boardsize = sudDimX*sudDimY;
         try{
             writer = new BufferedWriter(new FileWriter(name+"(solution).txt"));
-            //current row
-            int row = 0;
-            //current row +1
-            int current = 1;
-            for(int i = 0; i<solution.length;i++){
-                //check if we need to go to the next row
-                if(Math.abs(solution[i]/100)!=current){
-                    current++;
-                    writer.write("\n");
-                    row ++;
-
-
+            for(int row = 0; row<boardsize;row++){
+                for(int col = 0; col<boardsize;col++){
+                    writer.write(solveBoard[row][col]+" ");
                 }
-                //positive number means that that number is the actual number for that cell
-                if(solution[i]>0){
-                    writer.write(solution[i]%10+" ");
-                    //insert number to solveBoard
-                    solveBoard[row][solution[i]%100/10-1] = solution[i]%10;
-                }
-
+                writer.write("\n");
             }
             writer.close();
         }
@@ -161,10 +312,16 @@ public class SudokuSolver {
     /**
      * Gets the board from text file
      * @param  fname file name
+     * @return false if the file is missing or is not a board, leaving no board loaded
      */
-    public static void getBoard(String fname){
+    public static boolean getBoard(String fname){
         //name becomes a global variable
         name = fname;
+        //forget the last board, so a bad file can not be mistaken for it
+        sudDimX = 0;
+        sudDimY = 0;
+        originalBoard = null;
+        solveBoard = null;
         Scanner s = null;
         //gets the dimension of the individual boxes
         boolean firstLine = true;
@@ -214,12 +371,24 @@ public class SudokuSolver {
         }
         catch(FileNotFoundException ex){
             System.out.println("No files with that name =(");
-
+        }
+        catch(RuntimeException ex){
+            System.out.println(ex+" error occured =(");
+            row = -1;
         }
         finally{
             if(s!= null)
                 s.close();
         }
+        //every row of the board must be there
+        if(!declareBoard || row != sudDimX*sudDimY){
+            sudDimX = 0;
+            sudDimY = 0;
+            originalBoard = null;
+            solveBoard = null;
+            return false;
+        }
+        return true;
     }
     /**
      * Translate the encoding to an cnf file
@@ -228,7 +397,7 @@ public class SudokuSolver {
     public static void conNForm(List<int []> encode){
         try{
             BufferedWriter writer = new BufferedWriter(new FileWriter(name+".cnf"));
-            writer.write("p cnf 999 "+encode.size()+"\n");
+            writer.write("p cnf "+numVars+" "+encode.size()+"\n");
             for(int i = 0; i< encode.size();i++){
                 for(int j = 0; j<encode.get(i).length;j++){
                     writer.write(encode.get(i)[j]+" ");
@@ -244,202 +413,177 @@ public class SudokuSolver {
 
     }
     /**
-     * Checks if our solution for a 9x9 board is valid or not
+     * Checks if our solution is valid, using the box shape of the board that was loaded
      * @param  problem 	the original problem
      * @param  solution 	the solution to the problem
      */
     public static boolean certifer(int [][] problem, int[][] solution){
-        //checks if all the original numbers in problem are in solution
-        for(int i = 0; i< problem.length;i++){
-            for(int j = 0; j<problem[i].length;j++){
-                if(problem[i][j]!=0){
-                    if(problem[i][j] != solution[i][j])
-                        return false;
-                }
+        return certifer(problem, solution, sudDimX, sudDimY);
+    }
+    /**
+     * Checks if our solution is valid for a board made of boxRows x boxCols boxes.
+     * Every row, column and box is checked with a bitmask of the digits seen so far,
+     * so nothing is allocated and each cell is visited three times.
+     * @param  problem 	the original problem
+     * @param  solution 	the solution to the problem
+     * @param  boxRows 	number of rows in one box
+     * @param  boxCols 	number of columns in one box
+     */
+    public static boolean certifer(int [][] problem, int[][] solution, int boxRows, int boxCols){
+        int size = boxRows*boxCols;
+        //one bit per digit, so boards up to 64x64
+        if(size < 1 || size > 64 || problem == null || problem.length != size
+                || solution == null || solution.length != size)
+            return false;
+        long full = -1L >>> (64-size);
+
+        //checks the shape and that all the original numbers in problem are in solution
+        for(int i = 0; i< size;i++){
+            if(problem[i] == null || problem[i].length != size
+                    || solution[i] == null || solution[i].length != size)
+                return false;
+            for(int j = 0; j<size;j++){
+                if(problem[i][j]!=0 && problem[i][j] != solution[i][j])
+                    return false;
             }
         }
 
-        //iterate through board
-        for (int i = 0; i < 9; i++) {
-
-            int[] row = new int[9];
-            int[] square = new int[9];
-            int[] column = solution[i].clone();
-
-            for (int j = 0; j < 9; j ++) {
-                row[j] = solution[j][i];
-                square[j] = solution[(i / 3) * 3 + j / 3][i * 3 % 9 + j % 3];
+        //iterate through board, unit i is the i-th row, column and box
+        for (int i = 0; i < size; i++) {
+            long row = 0, column = 0, square = 0;
+            int top = (i / boxRows) * boxRows;
+            int left = (i % boxRows) * boxCols;
+            for (int j = 0; j < size; j ++) {
+                row |= digitBit(solution[i][j], size);
+                column |= digitBit(solution[j][i], size);
+                square |= digitBit(solution[top + j / boxCols][left + j % boxCols], size);
             }
-            if (!(validate(column) && validate(row) && validate(square)))
+            if (row != full || column != full || square != full)
                 return false;
         }
         return true;
-
-
     }
     /**
-     * check if every number is in the row, column or box
-     * @param  check 	the original problem
+     * bit for a digit, 0 if the digit is not between 1 and size
+     * so that the unit can never become full
      */
-    private static boolean validate(int[] check) {
-        int i = 0;
-        Arrays.sort(check);
-        for (int number : check) {
-            if (number != ++i)
-                return false;
-        }
-        return true;
+    private static long digitBit(int digit, int size) {
+        return (digit >= 1 && digit <= size) ? 1L << (digit - 1) : 0L;
     }
-    public static int varStringToInt(int first, int second, int third){
-        String f = first + "";
-        String s = second + "";
-        String t = third + "";
-        String var_str = f + s + t;
-        int var_int = Integer.parseInt(var_str);
-        return var_int;
+    /**
+     * SAT variable meaning "the cell at row, col contains val", all 1-based.
+     * Variables 1 to boardsize^3 are used, anything above is auxiliary.
+     */
+    public static int var(int row, int col, int val, int boardsize){
+        return ((row-1)*boardsize + (col-1))*boardsize + val;
     }
 
+    /**
+     * Encodes the board with the current at most one encoding
+     * @param  boardsize 	number of rows (and columns) of the board
+     */
     public static void encodeBoard(int boardsize){
         List<int[]> clz_list = new ArrayList<int[]>();
+        AtMostOne amo = new AtMostOne(encoding, boardsize*boardsize*boardsize + 1);
 
-        // PREEXISTING NUMBERS CLAUSES, EG. [113] IF ROW 1 COL 1 CONTAINS '3'
-        for (int row = 1; row <= originalBoard.length; row ++) {
-            for (int col = 1; col <= originalBoard.length; col ++) {
+        // PREEXISTING NUMBERS CLAUSES, EG. [var(1,1,3)] IF ROW 1 COL 1 CONTAINS '3'
+        for (int row = 1; row <= boardsize; row ++) {
+            for (int col = 1; col <= boardsize; col ++) {
                 int cell = originalBoard[row-1][col-1];
                 if (cell != 0) {
-                    int[] f_clz = new int[1];
-                    f_clz[0] = varStringToInt(row, col, cell);
-                    clz_list.add(f_clz);
+                    clz_list.add(new int[] {var(row, col, cell, boardsize)});
                 }
             }
         }
 
-
-        // ROW CLAUSES
+        // CELL CLAUSES, EVERY CELL HOLDS EXACTLY ONE NUMBER
         for (int row = 1; row <= boardsize; row ++){
-            for (int val = 1; val <= boardsize; val ++) {
-                int [] row_clz = new int[9];
-                int [] col_clz = new int[9];
-                for (int col = 1; col <= boardsize; col ++){
-                    int var = varStringToInt(row, col, val); //111, 121, 131, ...
-                    int col_var = varStringToInt(col, row, val);
-                    row_clz[col-1] = var;
-                    col_clz[col-1] = col_var;
-                }
-                clz_list.add(row_clz);
-                clz_list.add(col_clz);
+            for (int col = 1; col <= boardsize; col ++){
+                int [] cell_clz = new int[boardsize];
+                for (int val = 1; val <= boardsize; val ++)
+                    cell_clz[val-1] = var(row, col, val, boardsize);
+                exactlyOne(cell_clz, amo, clz_list);
             }
+        }
 
-            // CELL CLAUSES
-            for (int col = 1; col <= boardsize; col ++){
-                int[] base_clz = new int[9];
-                for (int m = 1; m <= boardsize; m++) {
-                    base_clz[m-1] = varStringToInt(row, col, m);
-                }
-                clz_list.add(base_clz);
-                for (int m = 1; m <= boardsize; m ++){
-                    int var_1 = -1 * varStringToInt(row, col, m);
-                    int var_r1 = -1 * varStringToInt(row, m, col);
-                    int var_c1 = -1 * varStringToInt(m, row, col);
-                    int var_b1;
-
-                    for (int n = 1; n <= boardsize; n ++){
-                        int var_2 = -1 * varStringToInt(row, col, n);
-                        int var_r2 = -1 * varStringToInt(row, n, col);
-                        int var_c2 = -1 * varStringToInt(n, row, col);
-                        if (var_1 != var_2){
-                            int [] cell_clz = {var_1, var_2};
-                            clz_list.add(cell_clz);
-                        }
-                        if (var_r1 != var_r2) {
-                            int [] r_clz = {var_r1, var_r2};
-                            clz_list.add(r_clz);
-                        }
-                        if (var_c1 != var_c2) {
-                            int [] c_clz = {var_c1, var_c2};
-                            clz_list.add(c_clz);
-                        }
-                    }
+        // ROW AND COLUMN CLAUSES, EVERY NUMBER EXACTLY ONCE PER ROW AND PER COLUMN
+        for (int val = 1; val <= boardsize; val ++){
+            for (int i = 1; i <= boardsize; i ++){
+                int [] row_clz = new int[boardsize];
+                int [] col_clz = new int[boardsize];
+                for (int j = 1; j <= boardsize; j ++){
+                    row_clz[j-1] = var(i, j, val, boardsize);
+                    col_clz[j-1] = var(j, i, val, boardsize);
                 }
+                exactlyOne(row_clz, amo, clz_list);
+                exactlyOne(col_clz, amo, clz_list);
             }
         }
 
-        // BOX CLAUSES
-        int box_w = sudDimX;
-        int box_h = sudDimY;
+        // BOX CLAUSES, EVERY NUMBER EXACTLY ONCE PER sudDimX x sudDimY BOX
+        int box_h = sudDimX;
+        int box_w = sudDimY;
         for (int val = 1; val <= boardsize; val ++){
-            int[][] b = new int[box_w * box_h][box_w * box_h];
-            for (int i = 1; i <= box_w; i ++){
-                for (int j = 1; j <= box_w; j ++){
-
-
-                    // each var represents one box in puzzle
-                    int [] all_v1 = new int[box_w * box_h];
-                    int count = 0;
-                    for (int p = 0; p < box_w; p++){
-                        for (int o = 0; o < box_h; o++){
-                            int v_gen = varStringToInt(i + (p * box_w), j + (o * box_h), val);
-                            all_v1[count] = v_gen;
-                            count += 1;
-                        }
-                    }
-
-                    // CREATES BOX CLAUSES, EG. THERE MUST BE A '1', '2', ... IN EACH BOX
-                    for (int r = 0; r < (box_w * box_h); r ++){
-                        b[r][((i-1)*box_w) + (j-1)] = all_v1[r];
-                    }
-
-                    // BOX CLAUSES, EG. THERE CANNOT BE MORE THAN ONE '1' IN A GIVEN BOX, &c.
-                    for (int e = 1; e <= box_h; e ++){
-                        for (int t = 1; t <= box_h; t ++) {
-                            int [] all_v2 = new int[box_w * box_h];
-                            int count2 = 0;
-                            for (int p = 0; p < box_w; p++){
-                                for (int o = 0; o < box_h; o++){
-                                    int v2_gen = varStringToInt(e + (p * box_w), t + (o * box_h), val);
-                                    all_v2[count2] = v2_gen;
-                                    count2 += 1;
-                                }
-                            }
-
-                            for (int y = 0; y < (box_w * box_h); y++){
-                                int [] b_clz = new int[2];
-                                if (all_v1[y] != all_v2[y]){
-                                    b_clz = new int[] {-1 * all_v1[y], -1 * all_v2[y]};
-                                    clz_list.add(b_clz);
-                                }
-                            }
-
-                        }
-                    }
-
-
+            for (int top = 1; top <= boardsize; top += box_h){
+                for (int left = 1; left <= boardsize; left += box_w){
+                    int [] b_clz = new int[boardsize];
+                    for (int k = 0; k < boardsize; k ++)
+                        b_clz[k] = var(top + k / box_w, left + k % box_w, val, boardsize);
+                    exactlyOne(b_clz, amo, clz_list);
                 }
             }
-            for (int k = 0; k < (box_w * box_h); k ++){
-                clz_list.add(b[k]);
-            }
         }
 
         formula = clz_list;
+        numVars = amo.nextVar() - 1;
         boolean VERBOSE = false;
         if (VERBOSE == true){
-            int counter = 0;
-            for (int[] c : clz_list){
-                String cl = "";
-                for (int val : c){
-                    cl += (val + " ");
-                }
-                System.out.println(cl);
-                counter += 1;
-            }
-            String cnt = counter + "";
-            System.out.println("Number of Clauses: " + cnt);
+            for (int[] c : clz_list)
+                System.out.println(Arrays.toString(c));
+            System.out.println("Number of Clauses: " + clz_list.size());
         }
     }
 
+    /**
+     * Encodes the board loaded by getBoard
+     * @return the encoding, ready for any SolverEngine
+     */
+    public static Cnf encode(){
+        encodeBoard(sudDimX*sudDimY);
+        return new Cnf(numVars, formula);
+    }
 
+    // at least one of lits (the clause itself) plus at most one of lits
+    private static void exactlyOne(int [] lits, AtMostOne amo, List<int[]> clz_list){
+        clz_list.add(lits);
+        amo.encode(lits, clz_list);
+    }
 
-
-
+    /**
+     * Encodes a puzzle with every at most one encoding and prints the clause
+     * and variable counts, encode time and sat4j solve time of each
+     * @param  fname 	puzzle file name
+     */
+    public static void encodingReport(String fname){
+        if(!getBoard(fname))
+            return;
+        int boardsize = sudDimX*sudDimY;
+        System.out.println(boardsize+"x"+boardsize+" board "+fname);
+        System.out.printf("%-12s %10s %10s %12s %10s %10s%n",
+                "encoding", "variables", "clauses", "literals", "encode ms", "solve ms");
+        for (AtMostOne.Encoding e : AtMostOne.Encoding.values()){
+            encoding = e;
+            long start = System.nanoTime();
+            encodeBoard(boardsize);
+            long encoded = System.nanoTime();
+            long literals = 0;
+            for (int[] c : formula)
+                literals += c.length;
+            long solveStart = System.nanoTime();
+            assignment = engine.solve(new Cnf(numVars, formula)).model;
+            long solved = System.nanoTime();
+            System.out.printf("%-12s %10d %10d %12d %10.1f %10.1f%n", e.name().toLowerCase(),
+                    numVars, formula.size(), literals, (encoded-start)/1e6, (solved-solveStart)/1e6);
+        }
+    }
 }